@@ -19,6 +19,37 @@ configurations {
 	}
 }
 
+//Микробенчмарки JMH: исходники в src/jmh/java, видят классы и зависимости main
+sourceSets {
+	create("jmh") {
+		compileClasspath += sourceSets.main.get().output
+		runtimeClasspath += sourceSets.main.get().output
+	}
+}
+
+//Нагрузочный прогон всего приложения: исходники в src/loadTest/java, запускается задачей loadTest
+sourceSets {
+	create("loadTest") {
+		compileClasspath += sourceSets.main.get().output
+		runtimeClasspath += sourceSets.main.get().output
+	}
+}
+
+configurations {
+	named("loadTestImplementation") {
+		extendsFrom(configurations.implementation.get())
+	}
+	named("loadTestRuntimeOnly") {
+		extendsFrom(configurations.runtimeOnly.get())
+	}
+	named("jmhImplementation") {
+		extendsFrom(configurations.implementation.get())
+	}
+	named("jmhRuntimeOnly") {
+		extendsFrom(configurations.runtimeOnly.get())
+	}
+}
+
 repositories {
 	mavenCentral()
 }
@@ -28,25 +59,75 @@ dependencies {
 	implementation("org.springframework.boot:spring-boot-starter-security")
 	implementation("org.springframework.boot:spring-boot-starter-validation")
 	implementation("org.springframework.boot:spring-boot-starter-web")
+	implementation("org.springframework.boot:spring-boot-starter-cache")
+	implementation("com.github.ben-manes.caffeine:caffeine")
+	implementation("org.flywaydb:flyway-core")
+	runtimeOnly("org.flywaydb:flyway-database-postgresql")
 	// https://mvnrepository.com/artifact/org.springframework.boot/spring-boot-starter-thymeleaf
 	val thymeleafVersion = "3.3.2"
 	implementation("org.springframework.boot:spring-boot-starter-thymeleaf:$thymeleafVersion")
-	// https://mvnrepository.com/artifact/org.modelmapper/modelmapper
-	val modelmapperVersion = "3.2.1"
-	implementation("org.modelmapper:modelmapper:$modelmapperVersion")
 	// https://mvnrepository.com/artifact/com.auth0/java-jwt
 	val jwtVersion = "4.4.0"
 	implementation("com.auth0:java-jwt:$jwtVersion")
-	// https://mvnrepository.com/artifact/jmimemagic/jmimemagic
-	implementation("jmimemagic:jmimemagic:0.1.2")
+	// https://mvnrepository.com/artifact/org.roaringbitmap/RoaringBitmap
+	val roaringBitmapVersion = "1.3.0"
+	implementation("org.roaringbitmap:RoaringBitmap:$roaringBitmapVersion")
 	compileOnly("org.projectlombok:lombok")
 	runtimeOnly("org.postgresql:postgresql")
 	annotationProcessor("org.projectlombok:lombok")
 	testImplementation("org.springframework.boot:spring-boot-starter-test")
 	testImplementation("org.springframework.security:spring-security-test")
+	// https://mvnrepository.com/artifact/io.zonky.test/embedded-postgres
+	val embeddedPostgresVersion = "2.1.0"
+	testImplementation("io.zonky.test:embedded-postgres:$embeddedPostgresVersion")
+	testImplementation(enforcedPlatform("io.zonky.test.postgres:embedded-postgres-binaries-bom:16.4.0"))
+	"loadTestImplementation"("io.zonky.test:embedded-postgres:$embeddedPostgresVersion")
+	"loadTestImplementation"(enforcedPlatform("io.zonky.test.postgres:embedded-postgres-binaries-bom:16.4.0"))
+	// https://mvnrepository.com/artifact/org.hdrhistogram/HdrHistogram
+	val hdrHistogramVersion = "2.2.2"
+	"loadTestImplementation"("org.hdrhistogram:HdrHistogram:$hdrHistogramVersion")
 	testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+	// https://mvnrepository.com/artifact/org.openjdk.jmh/jmh-core
+	val jmhVersion = "1.37"
+	"jmhImplementation"("org.openjdk.jmh:jmh-core:$jmhVersion")
+	"jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:$jmhVersion")
+	// ModelMapper и jmimemagic остались только как точки сравнения в MapperBenchmark и ContentTypeBenchmark
+	// https://mvnrepository.com/artifact/org.modelmapper/modelmapper
+	val modelmapperVersion = "3.2.1"
+	"jmhImplementation"("org.modelmapper:modelmapper:$modelmapperVersion")
+	// https://mvnrepository.com/artifact/jmimemagic/jmimemagic
+	"jmhImplementation"("jmimemagic:jmimemagic:0.1.2")
 }
 
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
+
+//gradle jmh -PjmhIncludes=MapperBenchmark - регулярное выражение по именам бенчмарков, по умолчанию все.
+//Результаты в JSON (build/reports/jmh/results.json или -PjmhResults=<файл>), чтобы сравнивать сборки между собой
+tasks.register<JavaExec>("jmh") {
+	description = "Runs JMH benchmarks from src/jmh and writes JSON results."
+	group = "verification"
+	val results = project.findProperty("jmhResults")?.toString()?.let { file(it) }
+		?: layout.buildDirectory.file("reports/jmh/results.json").get().asFile
+	classpath = sourceSets["jmh"].runtimeClasspath
+	mainClass.set("org.openjdk.jmh.Main")
+	args("-rf", "json", "-rff", results.absolutePath, project.findProperty("jmhIncludes")?.toString() ?: ".*")
+	outputs.file(results)
+	outputs.upToDateWhen { false }
+	doFirst {
+		results.parentFile.mkdirs()
+	}
+}
+
+//gradle loadTest -PloadTest.rate=100 -PloadTest.duration=60s - все свойства -PloadTest.* передаются как системные
+//(см. LoadTestConfig). Перцентили печатаются в консоль, гистограммы .hgrm пишутся в build/reports/loadtest
+tasks.register<JavaExec>("loadTest") {
+	description = "Boots the application against PostgreSQL and runs the mixed load test."
+	group = "verification"
+	classpath = sourceSets["loadTest"].runtimeClasspath
+	mainClass.set("ru.library.loadtest.LoadTest")
+	systemProperty("loadTest.output", layout.buildDirectory.dir("reports/loadtest").get().asFile.absolutePath)
+	systemProperties(project.properties.filterKeys { it.startsWith("loadTest.") })
+	outputs.upToDateWhen { false }
+}
@@ -0,0 +1,39 @@
+package ru.library.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Тело ответа списочных эндпоинтов: List<BookDTO> через ObjectMapper с настройками Spring по умолчанию
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookDtoSerializationBenchmark {
+
+    @Param({"20", "100"})
+    public int size;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private List<BookDTO> books;
+
+    @Setup
+    public void setUp() {
+        books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            books.add(new BookDTO("Title " + i, 1900 + i, "Author " + i, "Annotation of the book number " + i, null));
+        }
+    }
+
+    @Benchmark
+    public byte[] writeBookList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(books);
+    }
+}
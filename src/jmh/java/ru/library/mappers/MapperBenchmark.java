@@ -0,0 +1,113 @@
+package ru.library.mappers;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import ru.library.dto.BookDTO;
+import ru.library.dto.PersonDTO;
+import ru.library.models.Book;
+import ru.library.models.BookStatus;
+import ru.library.models.Person;
+import ru.library.models.Role;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//ModelMapper (как был настроен бин в LibraryAppApplication) против BookMapper/PersonMapper на тех же данных.
+//bookList* - страница списка книг из 100 элементов, остальные - одиночные конвертации из админских эндпоинтов
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    private static final int PAGE_SIZE = 100;
+
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final BookMapper bookMapper = new BookMapper();
+    private final PersonMapper personMapper = new PersonMapper();
+
+    private List<Book> books;
+    private Person person;
+    private PersonDTO personDTO;
+    private BookDTO bookDTO;
+
+    @Setup
+    public void setUp() {
+        person = new Person();
+        person.setId(1L);
+        person.setName("Ivan Ivanovich Ivanov");
+        person.setAge(30);
+        person.setEmail("ivanov@example.com");
+        person.setPhoneNumber("+71234567890");
+        person.setPassword("$2a$10$abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ012");
+        person.setRole(Role.ROLE_USER);
+        person.setCreatedAt(LocalDateTime.now());
+
+        books = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Book book = new Book();
+            book.setBookId((long) i);
+            book.setTitle("Title " + i);
+            book.setAuthor("Author " + i);
+            book.setYearOfProduction(1900 + i);
+            book.setAnnotation("Annotation " + i);
+            book.setStatus(BookStatus.ASSIGNED);
+            book.setCreatedAt(LocalDateTime.now());
+            book.setUpdatedAt(LocalDateTime.now());
+            book.setBookOwner(person);
+            books.add(book);
+        }
+
+        personDTO = personMapper.toDto(person);
+        bookDTO = bookMapper.toDto(books.get(0));
+
+        //Первый map строит TypeMap - в замер не входит, как и в приложении после прогрева
+        modelMapper.map(books.get(0), BookDTO.class);
+        modelMapper.map(person, PersonDTO.class);
+        modelMapper.map(personDTO, Person.class);
+        modelMapper.map(bookDTO, Book.class);
+    }
+
+    @Benchmark
+    public List<BookDTO> bookListModelMapper() {
+        return books.stream().map(book -> modelMapper.map(book, BookDTO.class)).toList();
+    }
+
+    @Benchmark
+    public List<BookDTO> bookListMapper() {
+        return books.stream().map(bookMapper::toDto).toList();
+    }
+
+    @Benchmark
+    public PersonDTO personToDtoModelMapper() {
+        return modelMapper.map(person, PersonDTO.class);
+    }
+
+    @Benchmark
+    public PersonDTO personToDtoMapper() {
+        return personMapper.toDto(person);
+    }
+
+    @Benchmark
+    public Person personDtoToEntityModelMapper() {
+        return modelMapper.map(personDTO, Person.class);
+    }
+
+    @Benchmark
+    public Person personDtoToEntityMapper() {
+        return personMapper.toEntity(personDTO);
+    }
+
+    @Benchmark
+    public Book bookDtoToEntityModelMapper() {
+        return modelMapper.map(bookDTO, Book.class);
+    }
+
+    @Benchmark
+    public Book bookDtoToEntityMapper() {
+        return bookMapper.toEntity(bookDTO);
+    }
+}
@@ -0,0 +1,53 @@
+package ru.library.util;
+
+import net.sf.jmimemagic.Magic;
+import net.sf.jmimemagic.MagicException;
+import net.sf.jmimemagic.MagicMatchNotFoundException;
+import net.sf.jmimemagic.MagicParseException;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+//Определение типа обложки: jmimemagic (как было до проверки сигнатур) против ImageUtil.detectContentType.
+//Обложки 256x384 генерируются при старте, в репозитории бинарных образцов нет
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentTypeBenchmark {
+
+    @Param({"jpeg", "png", "gif"})
+    public String format;
+
+    private byte[] cover;
+
+    @Setup
+    public void setUp() throws IOException {
+        BufferedImage image = new BufferedImage(256, 384, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.DARK_GRAY, 256, 384, Color.ORANGE));
+        graphics.fillRect(0, 0, 256, 384);
+        graphics.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        cover = out.toByteArray();
+    }
+
+    @Benchmark
+    public String magicMatch() throws MagicParseException, MagicMatchNotFoundException, MagicException {
+        return Magic.getMagicMatch(cover).getMimeType();
+    }
+
+    @Benchmark
+    public String signature() {
+        return ImageUtil.detectContentType(cover);
+    }
+}
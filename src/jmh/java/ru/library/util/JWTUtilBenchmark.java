@@ -0,0 +1,47 @@
+package ru.library.util;
+
+import org.openjdk.jmh.annotations.*;
+import ru.library.models.Role;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+//Выдача токена при входе и проверка на каждом запросе в JWTFilter: повторный токен из кеша проверенных
+//и первый (кеш размера 0 - каждый раз HMAC и разбор JSON)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JWTUtilBenchmark {
+    private static final String SECRET = "benchmark-secret";
+    private static final String ISSUER = "library";
+
+    private JWTUtil jwtUtil;
+    private JWTUtil uncachedJwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JWTUtil(SECRET, ISSUER, Duration.ofHours(1), 10_000);
+        uncachedJwtUtil = new JWTUtil(SECRET, ISSUER, Duration.ofHours(1), 0);
+        token = jwtUtil.generateToken(1L, "Ivan Ivanovich Ivanov", Role.ROLE_USER);
+        jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(1L, "Ivan Ivanovich Ivanov", Role.ROLE_USER);
+    }
+
+    @Benchmark
+    public Object validateCachedToken() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public Object validateUncachedToken() {
+        return uncachedJwtUtil.validateToken(token);
+    }
+}
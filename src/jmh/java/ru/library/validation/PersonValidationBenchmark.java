@@ -0,0 +1,61 @@
+package ru.library.validation;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+import ru.library.models.Person;
+import ru.library.models.Role;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+//Регулярные выражения на имени, почте и телефоне Person: проверяются при регистрации и при сохранении человека.
+//Сам PersonValidator проверяет только занятость имени (NameAvailabilityService), без регулярок
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersonValidationBenchmark {
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private Person validPerson;
+    private Person invalidPerson;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        validPerson = person("Ivan Ivanovich Ivanov", "ivanov@example.com", "+71234567890");
+        invalidPerson = person("Ivan", "not-an-email", "8-800-555-35-35");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Person>> validPerson() {
+        return validator.validate(validPerson);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Person>> invalidPerson() {
+        return validator.validate(invalidPerson);
+    }
+
+    private static Person person(String name, String email, String phoneNumber) {
+        Person person = new Person();
+        person.setName(name);
+        person.setAge(30);
+        person.setEmail(email);
+        person.setPhoneNumber(phoneNumber);
+        person.setPassword("secret");
+        person.setRole(Role.ROLE_USER);
+        return person;
+    }
+}
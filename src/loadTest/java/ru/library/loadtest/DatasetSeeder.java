@@ -0,0 +1,155 @@
+package ru.library.loadtest;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.imageio.ImageIO;
+import javax.sql.DataSource;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+//Схема накатывается теми же миграциями Flyway до старта приложения: индекс обложек и фильтр имен
+//строятся при запуске, поэтому данные должны лежать в базе раньше
+public class DatasetSeeder {
+    public static final String PASSWORD = "load-test-password";
+    public static final String ADMIN_NAME = "Load Test Admin";
+
+    private static final int BATCH_SIZE = 500;
+    private static final int DISTINCT_COVERS = 8;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+
+    public DatasetSeeder(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public void seed(LoadTestConfig config, int bcryptStrength) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        Long existing = jdbcTemplate.queryForObject("select count(*) from person", Long.class);
+
+        if (existing != null && existing > 0) {
+            throw new IllegalStateException("loadTest.jdbcUrl must point at an empty database, person already has " + existing + " rows");
+        }
+
+        //Один хэш на всех: посев не должен тратить минуты на BCrypt, а вход проверяет пароль с той же стоимостью
+        String passwordHash = new BCryptPasswordEncoder(bcryptStrength).encode(PASSWORD);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.update("insert into person(full_name, age, email, phone_number, password, created_at, role) values (?, ?, ?, ?, ?, ?, 'ROLE_ADMIN'::role)",
+                ADMIN_NAME, 40, "admin@load.test", "+70000000000", passwordHash, now);
+
+        List<Object[]> people = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= config.people(); i++) {
+            people.add(new Object[]{readerName(i), 18 + i % 60, "reader" + i + "@load.test",
+                    String.format("+7%010d", i), passwordHash, now});
+            flushIfFull(people, "insert into person(full_name, age, email, phone_number, password, created_at, role) values (?, ?, ?, ?, ?, ?, 'ROLE_USER'::role)");
+        }
+        flush(people, "insert into person(full_name, age, email, phone_number, password, created_at, role) values (?, ?, ?, ?, ?, ?, 'ROLE_USER'::role)");
+
+        List<Object[]> books = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= config.books(); i++) {
+            books.add(new Object[]{"Load Test Book " + i, "Author " + (i % 500), 1900 + i % 120,
+                    "Annotation of the load test book number " + i, now, now});
+            flushIfFull(books, "insert into book(title, author, year_of_production, annotation, created_at, updated_at, status) values (?, ?, ?, ?, ?, ?, 'FREE'::book_status)");
+        }
+        flush(books, "insert into book(title, author, year_of_production, annotation, created_at, updated_at, status) values (?, ?, ?, ?, ?, ?, 'FREE'::book_status)");
+
+        //Несколько разных картинок на все обложки: кеш обложек работает по хэшу, как и с настоящими повторами
+        List<byte[]> images = new ArrayList<>(DISTINCT_COVERS);
+        List<String> hashes = new ArrayList<>(DISTINCT_COVERS);
+        for (int i = 0; i < DISTINCT_COVERS; i++) {
+            byte[] image = coverImage(i);
+            images.add(image);
+            hashes.add(sha256(image));
+        }
+
+        List<Object[]> covers = new ArrayList<>(BATCH_SIZE);
+        for (long bookId : coverBookIds(config)) {
+            int variant = (int) (bookId % DISTINCT_COVERS);
+            byte[] image = images.get(variant);
+            covers.add(new Object[]{bookId, image, image.length, hashes.get(variant), "image/jpeg", now});
+            flushIfFull(covers, "insert into book_cover(book_id, image, cover_size, content_hash, content_type, updated_at) values (?, ?, ?, ?, ?, ?)");
+        }
+        flush(covers, "insert into book_cover(book_id, image, cover_size, content_hash, content_type, updated_at) values (?, ?, ?, ?, ?, ?)");
+
+        jdbcTemplate.execute("analyze");
+    }
+
+    //Книги с обложками - первые loadTest.covers по id; база пустая, поэтому id идут с 1
+    public static List<Long> coverBookIds(LoadTestConfig config) {
+        List<Long> ids = new ArrayList<>(config.covers());
+        for (long id = 1; id <= config.covers(); id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    //Имя проходит проверку "три слова из латинских букв": номер читателя записывается буквами
+    public static String readerName(int index) {
+        StringBuilder letters = new StringBuilder();
+        int value = index;
+        do {
+            letters.append((char) ('a' + value % 26));
+            value /= 26;
+        } while (value > 0);
+
+        return "Reader " + letters + " Load";
+    }
+
+    private void flushIfFull(List<Object[]> rows, String sql) {
+        if (rows.size() >= BATCH_SIZE) {
+            flush(rows, sql);
+        }
+    }
+
+    private void flush(List<Object[]> rows, String sql) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows);
+            rows.clear();
+        }
+    }
+
+    private static byte[] coverImage(int variant) {
+        BufferedImage image = new BufferedImage(400, 600, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.getHSBColor(variant / (float) DISTINCT_COVERS, 0.6f, 0.9f),
+                400, 600, Color.DARK_GRAY));
+        graphics.fillRect(0, 0, 400, 600);
+        graphics.dispose();
+
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "jpeg", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package ru.library.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//Задержки по эндпоинтам в микросекундах; запросы, запланированные на прогрев, не учитываются
+public class LatencyReport {
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+    private final LongAdder skipped = new LongAdder();
+
+    public void record(String endpoint, long latencyNanos, boolean success) {
+        EndpointStats stats = endpoints.computeIfAbsent(endpoint, name -> new EndpointStats());
+        stats.histogram.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        (success ? stats.succeeded : stats.failed).increment();
+    }
+
+    //Сценарий не запущен: все книги его пула заняты незавершенными запросами
+    public void recordSkipped() {
+        skipped.increment();
+    }
+
+    public void print(PrintStream out, double measuredSeconds) {
+        out.printf(Locale.ROOT, "%-14s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "rps", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        endpoints.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    Histogram histogram = entry.getValue().snapshot();
+                    out.printf(Locale.ROOT, "%-14s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                            entry.getKey(),
+                            histogram.getTotalCount(),
+                            entry.getValue().failed.sum(),
+                            histogram.getTotalCount() / measuredSeconds,
+                            millis(histogram.getValueAtPercentile(50)),
+                            millis(histogram.getValueAtPercentile(90)),
+                            millis(histogram.getValueAtPercentile(99)),
+                            millis(histogram.getValueAtPercentile(99.9)),
+                            millis(histogram.getMaxValue()));
+                });
+
+        if (skipped.sum() > 0) {
+            out.println("skipped scenarios (book pool exhausted): " + skipped.sum());
+        }
+    }
+
+    //Файлы .hgrm - стандартный вывод HdrHistogram, их можно строить в HdrHistogram Plotter и сравнивать между прогонами
+    public void writeHistograms(Path directory) throws IOException {
+        Files.createDirectories(directory);
+
+        for (Map.Entry<String, EndpointStats> entry : endpoints.entrySet()) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(entry.getKey() + ".hgrm")))) {
+                entry.getValue().snapshot().outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / MICROS_PER_MILLI;
+    }
+
+    private static class EndpointStats {
+        private final Histogram histogram = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        //Запросы, не уложившиеся в ожидание в конце прогона, еще пишут в гистограмму, а ее обход
+        //при параллельной записи падает с ConcurrentModificationException
+        private Histogram snapshot() {
+            return histogram.copy();
+        }
+    }
+}
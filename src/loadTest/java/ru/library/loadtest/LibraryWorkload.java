@@ -0,0 +1,173 @@
+package ru.library.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+
+//Сценарии смешанной нагрузки. Пары assign/free, cover/release и view/release меняют статус книги, поэтому
+//у каждой пары свой пул книг: книга возвращается в пул только после второго запроса и не пересекается с другими
+public class LibraryWorkload {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final String userToken;
+    private final String adminToken;
+    private final long readerId;
+    private final int people;
+    private final LongFunction<String> cursorEncoder;
+    private final int books;
+    private final LatencyReport report;
+
+    private final ConcurrentLinkedQueue<Long> coverPool = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Long> assignPool = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Long> viewPool = new ConcurrentLinkedQueue<>();
+
+    public LibraryWorkload(HttpClient client, String baseUrl, String userToken, String adminToken, long readerId,
+                           LoadTestConfig config, LongFunction<String> cursorEncoder, LatencyReport report) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.userToken = userToken;
+        this.adminToken = adminToken;
+        this.readerId = readerId;
+        this.people = config.people();
+        this.cursorEncoder = cursorEncoder;
+        this.books = config.books();
+        this.report = report;
+
+        coverPool.addAll(DatasetSeeder.coverBookIds(config));
+
+        //Книги без обложек делятся поровну между выдачей и просмотром
+        for (long id = config.covers() + 1; id <= config.books(); id++) {
+            (id % 2 == 0 ? assignPool : viewPool).add(id);
+        }
+    }
+
+    public OpenModelDriver.Scenario scenario(String name) {
+        return switch (name) {
+            case "login" -> this::login;
+            case "catalog" -> this::catalog;
+            case "cover" -> (intendedStart, measured) -> pair(coverPool, intendedStart, measured,
+                    bookId -> get("cover", "/api/books/" + bookId + "/coverImage?personId=" + readerId, userToken),
+                    bookId -> put("cover.release", "/api/books/" + bookId + "/releaseAfterViewing", userToken));
+            case "assign" -> (intendedStart, measured) -> pair(assignPool, intendedStart, measured,
+                    bookId -> post("assign", "/api/admin/" + bookId + "/assign?personId=" + randomReader(), adminToken, null),
+                    bookId -> post("free", "/api/admin/" + bookId + "/free", adminToken, null));
+            case "view" -> (intendedStart, measured) -> pair(viewPool, intendedStart, measured,
+                    bookId -> get("view", "/api/books/" + bookId + "/content?personId=" + readerId, userToken),
+                    bookId -> put("view.release", "/api/books/" + bookId + "/releaseAfterViewing", userToken));
+            default -> throw new IllegalArgumentException("Unknown scenario in loadTest.mix: " + name);
+        };
+    }
+
+    private CompletableFuture<Void> login(long intendedStart, boolean measured) {
+        String name = DatasetSeeder.readerName(1 + ThreadLocalRandom.current().nextInt(people));
+        String body = "{\"name\":\"" + name + "\",\"password\":\"" + DatasetSeeder.PASSWORD + "\"}";
+
+        //Неверный пароль тоже приходит с 200, успешный вход отличается по полю jwt-token
+        return send(post("login", "/auth/login", null, body), intendedStart, measured,
+                response -> response.statusCode() == 200 && response.body().contains("jwt-token"));
+    }
+
+    //Случайная страница каталога: курсор - id книги, после которой начинается страница
+    private CompletableFuture<Void> catalog(long intendedStart, boolean measured) {
+        long after = ThreadLocalRandom.current().nextLong(books);
+        String path = after == 0 ? "/api/books" : "/api/books?cursor=" + cursorEncoder.apply(after);
+
+        return send(get("catalog", path, userToken), intendedStart, measured, response -> response.statusCode() == 200);
+    }
+
+    //Первый запрос меряется от запланированного момента; второй уходит сразу после ответа на первый
+    //и меряется от своей отправки. free после неудачной выдачи не отправляется - освобождать нечего
+    private CompletableFuture<Void> pair(ConcurrentLinkedQueue<Long> pool, long intendedStart, boolean measured,
+                                         LongFunction<NamedRequest> first, LongFunction<NamedRequest> second) {
+        Long bookId = pool.poll();
+
+        if (bookId == null) {
+            if (measured) {
+                report.recordSkipped();
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        NamedRequest firstRequest = first.apply(bookId);
+
+        return sendForStatus(firstRequest, intendedStart, measured)
+                .thenCompose(status -> {
+                    if (status != 200 && firstRequest.name().equals("assign")) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return sendForStatus(second.apply(bookId), System.nanoTime(), measured).thenApply(ignored -> null);
+                })
+                .whenComplete((result, ex) -> pool.add(bookId))
+                .thenApply(ignored -> null);
+    }
+
+    private CompletableFuture<Integer> sendForStatus(NamedRequest request, long intendedStart, boolean measured) {
+        return client.sendAsync(request.request(), HttpResponse.BodyHandlers.discarding())
+                .handle((response, ex) -> {
+                    int status = ex == null ? response.statusCode() : -1;
+                    if (measured) {
+                        report.record(request.name(), System.nanoTime() - intendedStart, status == 200);
+                    }
+                    return status;
+                });
+    }
+
+    private CompletableFuture<Void> send(NamedRequest request, long intendedStart, boolean measured,
+                                         Predicate<HttpResponse<String>> success) {
+        return client.sendAsync(request.request(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .handle((response, ex) -> {
+                    if (measured) {
+                        report.record(request.name(), System.nanoTime() - intendedStart, ex == null && success.test(response));
+                    }
+                    return null;
+                });
+    }
+
+    //Читатели - id 2..people+1, id 1 занят администратором
+    private long randomReader() {
+        return 2 + ThreadLocalRandom.current().nextInt(people);
+    }
+
+    private NamedRequest get(String name, String path, String token) {
+        return new NamedRequest(name, builder(path, token).GET().build());
+    }
+
+    private NamedRequest put(String name, String path, String token) {
+        return new NamedRequest(name, builder(path, token).PUT(HttpRequest.BodyPublishers.noBody()).build());
+    }
+
+    private NamedRequest post(String name, String path, String token, String json) {
+        HttpRequest.Builder builder = builder(path, token);
+
+        if (json != null) {
+            builder.header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(json));
+        } else {
+            builder.POST(HttpRequest.BodyPublishers.noBody());
+        }
+
+        return new NamedRequest(name, builder.build());
+    }
+
+    private HttpRequest.Builder builder(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+
+        return builder;
+    }
+
+    private record NamedRequest(String name, HttpRequest request) {
+    }
+}
@@ -0,0 +1,141 @@
+package ru.library.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import ru.library.LibraryAppApplication;
+import ru.library.models.Role;
+import ru.library.util.CursorUtil;
+import ru.library.util.JWTUtil;
+
+import javax.sql.DataSource;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//Сквозной нагрузочный прогон: PostgreSQL (встроенный или loadTest.jdbcUrl) -> посев данных -> приложение целиком,
+//с JWTFilter, контроллерами и Hibernate, на случайном порту -> открытая модель нагрузки -> перцентили по эндпоинтам.
+//Запуск: gradle loadTest -PloadTest.rate=300 -PloadTest.duration=2m
+public class LoadTest {
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final int BCRYPT_STRENGTH = Integer.getInteger("loadTest.bcryptStrength", 10);
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+
+        EmbeddedPostgres postgres = null;
+        ConfigurableApplicationContext context = null;
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(config.clientThreads());
+
+        try {
+            String jdbcUrl = config.jdbcUrl();
+            String username = config.username();
+            String password = config.password();
+
+            if (config.useEmbeddedDatabase()) {
+                postgres = EmbeddedPostgres.builder().start();
+                jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+                username = "postgres";
+                password = "";
+            }
+
+            DataSource dataSource = new DriverManagerDataSource(jdbcUrl, username, password);
+            long seedStart = System.nanoTime();
+            new DatasetSeeder(dataSource).seed(config, BCRYPT_STRENGTH);
+            System.out.printf("Seeded %d people, %d books, %d covers in %d ms%n", config.people(), config.books(),
+                    config.covers(), Duration.ofNanos(System.nanoTime() - seedStart).toMillis());
+
+            context = startApplication(withStringTypeUnspecified(jdbcUrl), username, password);
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+
+            //Токены выдаются напрямую: вход со своей стоимостью BCrypt меряется отдельным сценарием login
+            JWTUtil jwtUtil = context.getBean(JWTUtil.class);
+            CursorUtil cursorUtil = context.getBean(CursorUtil.class);
+            long readerId = 2;
+            String userToken = jwtUtil.generateToken(readerId, DatasetSeeder.readerName(1), Role.ROLE_USER);
+            String adminToken = jwtUtil.generateToken(1L, DatasetSeeder.ADMIN_NAME, Role.ROLE_ADMIN);
+
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(CONNECT_TIMEOUT)
+                    .executor(clientExecutor)
+                    .build();
+
+            LatencyReport report = new LatencyReport();
+            LibraryWorkload workload = new LibraryWorkload(client, "http://localhost:" + port, userToken, adminToken,
+                    readerId, config, cursorUtil::encode, report);
+
+            List<OpenModelDriver.Scenario> scenarios = new ArrayList<>();
+            List<Integer> weights = new ArrayList<>();
+            config.mix().forEach((name, weight) -> {
+                if (weight > 0) {
+                    scenarios.add(workload.scenario(name));
+                    weights.add(weight);
+                }
+            });
+
+            System.out.printf("Running %d req/s for %s after %s warmup, mix %s%n", config.requestsPerSecond(),
+                    config.duration(), config.warmup(), config.mix());
+
+            new OpenModelDriver(scenarios, weights, config.requestsPerSecond(), config.seed())
+                    .run(config.warmup(), config.duration(), DRAIN_TIMEOUT);
+
+            report.print(System.out, config.duration().toMillis() / 1000.0);
+
+            Path output = config.outputDirectory();
+            report.writeHistograms(output);
+            Files.writeString(output.resolve("config.txt"), config.toString());
+            System.out.println("Histograms written to " + output.toAbsolutePath());
+        } finally {
+            clientExecutor.shutdownNow();
+
+            if (context != null) {
+                context.close();
+            }
+
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+
+        //Планировщики и пулы приложения не все демоны, JVM не завершится сама
+        System.exit(0);
+    }
+
+    //Статусы и роли в схеме - типы enum PostgreSQL, а Hibernate передает @Enumerated(STRING) как varchar;
+    //с stringtype=unspecified сервер сам приводит строку к enum
+    private static String withStringTypeUnspecified(String jdbcUrl) {
+        if (jdbcUrl.contains("stringtype=")) {
+            return jdbcUrl;
+        }
+
+        return jdbcUrl + (jdbcUrl.contains("?") ? "&" : "?") + "stringtype=unspecified";
+    }
+
+    private static ConfigurableApplicationContext startApplication(String jdbcUrl, String username, String password) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.datasource.url", jdbcUrl);
+        properties.put("spring.datasource.username", username);
+        properties.put("spring.datasource.password", password);
+        properties.put("spring.jpa.hibernate.ddl-auto", "none");
+        properties.put("jwt.secret", "load-test-secret");
+        properties.put("jwt.issuer", "library-load-test");
+        properties.put("library.security.bcrypt.strength", BCRYPT_STRENGTH);
+        properties.put("logging.level.root", "WARN");
+
+        return new SpringApplicationBuilder(LibraryAppApplication.class)
+                .properties(properties)
+                .run();
+    }
+}
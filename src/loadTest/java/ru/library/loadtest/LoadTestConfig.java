@@ -0,0 +1,87 @@
+package ru.library.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//Параметры прогона берутся из системных свойств loadTest.*; gradle loadTest пробрасывает их из -PloadTest.*
+public record LoadTestConfig(String jdbcUrl,
+                             String username,
+                             String password,
+                             int people,
+                             int books,
+                             int covers,
+                             int requestsPerSecond,
+                             Duration warmup,
+                             Duration duration,
+                             Map<String, Integer> mix,
+                             int clientThreads,
+                             long seed,
+                             Path outputDirectory) {
+
+    public static final String DEFAULT_MIX = "login=2,catalog=40,cover=20,assign=13,view=25";
+
+    public static LoadTestConfig fromSystemProperties() {
+        LoadTestConfig config = new LoadTestConfig(
+                System.getProperty("loadTest.jdbcUrl"),
+                System.getProperty("loadTest.username", "postgres"),
+                System.getProperty("loadTest.password", ""),
+                Integer.getInteger("loadTest.people", 1000),
+                Integer.getInteger("loadTest.books", 5000),
+                Integer.getInteger("loadTest.covers", 1000),
+                Integer.getInteger("loadTest.rate", 100),
+                DurationStyle.detectAndParse(System.getProperty("loadTest.warmup", "10s")),
+                DurationStyle.detectAndParse(System.getProperty("loadTest.duration", "60s")),
+                parseMix(System.getProperty("loadTest.mix", DEFAULT_MIX)),
+                Integer.getInteger("loadTest.clientThreads", 16),
+                Long.getLong("loadTest.seed", 42L),
+                Path.of(System.getProperty("loadTest.output", "build/reports/loadtest")));
+
+        config.validate();
+        return config;
+    }
+
+    public boolean useEmbeddedDatabase() {
+        return jdbcUrl == null || jdbcUrl.isBlank();
+    }
+
+    private void validate() {
+        if (people < 1 || books < 1 || requestsPerSecond < 1 || clientThreads < 1) {
+            throw new IllegalArgumentException("loadTest.people, loadTest.books, loadTest.rate and loadTest.clientThreads must be positive");
+        }
+
+        if (covers < 0 || covers > books) {
+            throw new IllegalArgumentException("loadTest.covers must be between 0 and loadTest.books");
+        }
+
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("loadTest.mix must contain at least one positive weight");
+        }
+    }
+
+    //Формат: "login=2,catalog=40,..." - веса сценариев, а не проценты
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split("=");
+
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid loadTest.mix entry: " + entry);
+            }
+
+            int weight = Integer.parseInt(parts[1].trim());
+
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in loadTest.mix: " + entry);
+            }
+
+            mix.put(parts[0].trim(), weight);
+        }
+
+        return mix;
+    }
+}
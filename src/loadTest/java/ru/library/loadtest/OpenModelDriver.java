@@ -0,0 +1,86 @@
+package ru.library.loadtest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+//Открытая модель нагрузки: запросы отправляются по расписанию с постоянной частотой и не ждут ответов на
+//предыдущие. Задержка считается от запланированного момента, а не от фактической отправки, поэтому остановка
+//сервера или отставание генератора попадает в гистограмму целиком (coordinated omission не скрывает хвосты)
+public class OpenModelDriver {
+    private final List<Scenario> scenarios;
+    private final int[] cumulativeWeights;
+    private final int totalWeight;
+    private final long intervalNanos;
+    private final SplittableRandom random;
+
+    public OpenModelDriver(List<Scenario> scenarios, List<Integer> weights, int requestsPerSecond, long seed) {
+        this.scenarios = scenarios;
+        this.cumulativeWeights = new int[weights.size()];
+
+        int sum = 0;
+        for (int i = 0; i < weights.size(); i++) {
+            sum += weights.get(i);
+            cumulativeWeights[i] = sum;
+        }
+
+        this.totalWeight = sum;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+        this.random = new SplittableRandom(seed);
+    }
+
+    //Запросы, запланированные на время прогрева, выполняются, но в отчет не попадают
+    public void run(Duration warmup, Duration duration, Duration drainTimeout) {
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        ConcurrentHashMap.KeySetView<CompletableFuture<Void>, Boolean> inFlight = ConcurrentHashMap.newKeySet();
+
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * intervalNanos;
+
+            if (intendedStart >= end) {
+                break;
+            }
+
+            long delay = intendedStart - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+
+            Scenario scenario = pick();
+            CompletableFuture<Void> execution = scenario.execute(intendedStart, intendedStart >= measureFrom);
+            inFlight.add(execution);
+            execution.whenComplete((result, ex) -> inFlight.remove(execution));
+        }
+
+        try {
+            CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new))
+                    .get(drainTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            System.err.println("Not all requests completed within " + drainTimeout + ": " + inFlight.size() + " still in flight");
+        }
+    }
+
+    private Scenario pick() {
+        int value = random.nextInt(totalWeight);
+
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return scenarios.get(i);
+            }
+        }
+
+        return scenarios.get(scenarios.size() - 1);
+    }
+
+    public interface Scenario {
+        //intendedStart - запланированный момент отправки первого запроса сценария (System.nanoTime)
+        CompletableFuture<Void> execute(long intendedStart, boolean measured);
+    }
+}
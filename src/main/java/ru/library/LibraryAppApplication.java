@@ -1,9 +1,7 @@
 package ru.library;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
 
 @SpringBootApplication
 public class LibraryAppApplication {
@@ -11,9 +9,4 @@ public class LibraryAppApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(LibraryAppApplication.class, args);
 	}
-
-	@Bean
-	public ModelMapper modelMapper() {
-		return new ModelMapper();
-	}
 }
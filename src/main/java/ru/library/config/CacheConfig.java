@@ -0,0 +1,41 @@
+package ru.library.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String BOOKS_CACHE = "books";
+    public static final String PEOPLE_CACHE = "people";
+    public static final String PRINCIPALS_CACHE = "principals";
+
+    @Value("${library.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${library.cache.ttl:10m}")
+    private Duration ttl;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+        caffeineCacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats());
+        caffeineCacheManager.setCacheNames(List.of(BOOKS_CACHE, PEOPLE_CACHE, PRINCIPALS_CACHE));
+        caffeineCacheManager.setAllowNullValues(false);
+
+        //Инвалидация выполняется после коммита, иначе параллельное чтение успеет положить в кеш старые данные
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
@@ -1,6 +1,7 @@
 package ru.library.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,10 +11,10 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import ru.library.security.CostAwarePasswordEncoder;
 import ru.library.security.JWTFilter;
 import ru.library.security.PersonDetailsService;
 
@@ -34,7 +35,7 @@ public class SecurityConfig {
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.csrf(AbstractHttpConfigurer::disable)
-                .authorizeHttpRequests(authorize -> authorize.requestMatchers("/auth/login", "/auth/registration", "/error").permitAll()
+                .authorizeHttpRequests(authorize -> authorize.requestMatchers("/auth/login", "/auth/registration", "/auth/availability", "/error").permitAll()
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .requestMatchers("/api/people/**", "/api/books/**", "/api/people/**").hasAnyRole("USER", "ADMIN")
                         .anyRequest().authenticated()
@@ -46,16 +47,17 @@ public class SecurityConfig {
     }
 
     @Bean
-    public AuthenticationManager authenticationManager(HttpSecurity http) throws Exception {
+    public AuthenticationManager authenticationManager(HttpSecurity http, PasswordEncoder passwordEncoder) throws Exception {
 
         AuthenticationManagerBuilder builder = http.getSharedObject(AuthenticationManagerBuilder.class);
-        builder.userDetailsService(personDetailsService).passwordEncoder(getPasswordEncoder());
+        //PersonDetailsService реализует UserDetailsPasswordService, поэтому при успешном входе хеш с устаревшим cost перезаписывается
+        builder.userDetailsService(personDetailsService).passwordEncoder(passwordEncoder);
         return builder.build();
     }
 
     @Bean
-    public PasswordEncoder getPasswordEncoder(){
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder getPasswordEncoder(@Value("${library.security.bcrypt.strength:10}") int strength){
+        return new CostAwarePasswordEncoder(strength);
     }
 }
 
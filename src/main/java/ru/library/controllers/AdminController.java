@@ -1,8 +1,9 @@
 package ru.library.controllers;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
-import net.sf.jmimemagic.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -10,26 +11,43 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.library.dto.BookCoverView;
 import ru.library.dto.BookDTO;
+import ru.library.dto.BookView;
+import ru.library.dto.CoverStatusDTO;
+import ru.library.dto.CursorPageDTO;
 import ru.library.dto.PersonDTO;
+import ru.library.dto.PersonView;
+import ru.library.exceptions.auth_exp.AuthErrorResponse;
+import ru.library.exceptions.auth_exp.PasswordHashingRejectedException;
 import ru.library.exceptions.book_exp.BookErrorResponse;
 import ru.library.exceptions.book_exp.BookNotCreatedException;
 import ru.library.exceptions.book_exp.BookNotFoundException;
+import ru.library.exceptions.book_exp.BookStatusConflictException;
 import ru.library.exceptions.img_exp.ImageErrorResponse;
+import ru.library.exceptions.img_exp.InvalidCoverSizeException;
 import ru.library.exceptions.img_exp.MalformedUrlException;
+import ru.library.exceptions.img_exp.UnsupportedImageFormatException;
+import ru.library.exceptions.person_exp.InvalidPersonIdsException;
 import ru.library.exceptions.person_exp.PersonErrorResponse;
 import ru.library.exceptions.person_exp.PersonNotCreatedException;
 import ru.library.exceptions.person_exp.PersonNotFoundException;
 import ru.library.models.Book;
 import ru.library.models.BookStatus;
+import ru.library.models.CoverSize;
 import ru.library.models.Person;
 import ru.library.services.admin_service.AdminService;
+import ru.library.util.ETagUtil;
 import ru.library.util.ImageUtil;
+import ru.library.util.RangeUtil;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("api/admin")
@@ -77,9 +95,7 @@ public class AdminController {
             throw new PersonNotCreatedException(errors.toString());
         }
 
-        if (adminService.findPersonById(id) == null) {
-            throw new PersonNotFoundException("Person with id " + id + " not found");
-        }
+        adminService.findPersonViewById(id);
 
         Person person = adminService.convertPersonDTOToPerson(personDTO);
 
@@ -97,11 +113,11 @@ public class AdminController {
     }
 
     @GetMapping("/deleted/people")
-    public ResponseEntity<List<PersonDTO>> getDeletedPeople() {
-        List<Person> deletedPeople = adminService.getDeletedPeople();
+    public ResponseEntity<CursorPageDTO<PersonDTO>> getDeletedPeople(@RequestParam(value = "cursor", required = false) String cursor,
+                                                                     @RequestParam(value = "size", required = false) Integer size) {
+        CursorPageDTO<PersonView> deletedPeople = adminService.getDeletedPeoplePage(cursor, size);
 
-        return ResponseEntity.ok(deletedPeople.stream().map(adminService::convertPersonToPersonDTO)
-                .toList());
+        return ResponseEntity.ok(deletedPeople.map(adminService::convertPersonViewToPersonDTO));
     }
 
     @GetMapping("/personsBook/{id}")
@@ -110,6 +126,12 @@ public class AdminController {
         return ResponseEntity.ok(booksByPersonId);
     }
 
+    //Книги всех людей страницы одним запросом: ?ids=1,2,3
+    @GetMapping("/personsBooks")
+    public ResponseEntity<Map<Long, List<BookDTO>>> getBooksByPersonIds(@RequestParam("ids") List<Long> ids) {
+        return ResponseEntity.ok(adminService.getBooksByPersonIds(ids));
+    }
+
     //!Books
     @PostMapping("/createNewBook")
     public ResponseEntity<Book> createNewBook(@RequestBody @Valid BookDTO bookDTO, BindingResult result) {
@@ -127,18 +149,26 @@ public class AdminController {
 
         Book book = adminService.convertBookDTOToBook(bookDTO);
 
-        try {
-            byte[] imageBytes = ImageUtil.downloadImage(bookDTO.getCoverImageURL());
-            book.setCoverImage(imageBytes);
-        } catch (MalformedUrlException | IOException e) {
-            throw new MalformedUrlException(e.getMessage());
+        String coverImageUrl = bookDTO.getCoverImageURL();
+        boolean hasCover = coverImageUrl != null && !coverImageUrl.isBlank();
+
+        if (hasCover && !ImageUtil.isValidImageUrl(coverImageUrl)) {
+            throw new MalformedUrlException(coverImageUrl + " (expected an absolute http(s) URL)");
         }
 
         book.setStatus(BookStatus.FREE);
 
         adminService.save(book);
 
-        return ResponseEntity.ok(book);
+        if (!hasCover) {
+            return ResponseEntity.ok(book);
+        }
+
+        //Обложку скачивает фоновая очередь; прогресс - по ссылке из Location
+        adminService.enqueueCoverImage(book.getBookId(), coverImageUrl);
+
+        URI coverStatus = URI.create("/api/admin/" + book.getBookId() + "/coverStatus");
+        return ResponseEntity.accepted().location(coverStatus).body(book);
     }
 
     @PutMapping("/{id}/updateBook")
@@ -155,9 +185,7 @@ public class AdminController {
             throw new BookNotCreatedException(errors.toString());
         }
 
-        if (adminService.findBookById(bookId) == null) {
-            throw new BookNotFoundException("Book with id " + bookId + " not found");
-        }
+        adminService.findBookViewById(bookId);
 
         Book book = adminService.convertBookDTOToBook(bookDTO);
 
@@ -175,107 +203,86 @@ public class AdminController {
     }
 
     @GetMapping("/deleted/books")
-    public ResponseEntity<List<BookDTO>> getDeletedBooks() {
-        List<Book> deletedBooks = adminService.getDeletedBooks();
+    public ResponseEntity<CursorPageDTO<BookDTO>> getDeletedBooks(@RequestParam(value = "cursor", required = false) String cursor,
+                                                                  @RequestParam(value = "size", required = false) Integer size) {
+        CursorPageDTO<BookView> deletedBooks = adminService.getDeletedBooksPage(cursor, size);
 
-        return ResponseEntity.ok(deletedBooks.stream().map(adminService::convertBookToBookDTO)
-                .toList());
+        return ResponseEntity.ok(deletedBooks.map(adminService::convertBookViewToBookDTO));
     }
 
     @PostMapping("/{id}/assign")
     public ResponseEntity<String> assignBook(@PathVariable("id") Long bookId, @RequestParam("personId") Long personId) {
-        try {
-            adminService.assignBookToPerson(bookId, personId);
-            return ResponseEntity.ok("Book " + bookId + " assigned to person " + personId + " successfully");
-        } catch (RuntimeException ex) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
-        }
+        adminService.assignBookToPerson(bookId, personId);
+        return ResponseEntity.ok("Book " + bookId + " assigned to person " + personId + " successfully");
     }
 
     @PostMapping("/{id}/free")
     public ResponseEntity<String> freeBook(@PathVariable("id") Long bookId) {
-        try {
-            adminService.freeBook(bookId);
-            return ResponseEntity.ok("Book " + bookId + " free successfully");
-        } catch (RuntimeException ex) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
-        }
+        adminService.freeBook(bookId);
+        return ResponseEntity.ok("Book " + bookId + " free successfully");
     }
 
     @GetMapping("/{bookId}/coverImage")
-    public ResponseEntity<byte[]> getCoverImage(@PathVariable("bookId") Long bookId, @RequestParam("personId") Long personId ) {
-        try {
-            adminService.viewBookCover(bookId, personId);
-        } catch (IllegalStateException ex) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ex.getMessage().getBytes());
+    public ResponseEntity<Resource> getCoverImage(@PathVariable("bookId") Long bookId, @RequestParam("personId") Long personId,
+                                                  @RequestParam(value = "size", required = false) String size,
+                                                  WebRequest request, HttpServletRequest servletRequest) throws IOException {
+        CoverSize coverSize = CoverSize.fromParam(size);
+        BookCoverView cover = adminService.findCoverViewById(bookId, coverSize);
+
+        if (cover == null || cover.coverSize() == null || cover.coverSize() == 0) {
+            return ResponseEntity.notFound().build();
         }
 
-        Book book = adminService.findBookById(bookId);
+        //Если у клиента актуальная версия обложки, отвечаем 304 не читая байты картинки и не трогая статус книги
+        String eTag = ETagUtil.coverETag(cover);
+        long lastModified = ETagUtil.lastModified(cover.updatedAt());
 
-        if (book == null) {
-            return ResponseEntity.notFound().build();
+        if (request.checkNotModified(eTag, lastModified)) {
+            return null;
         }
 
-        byte[] imageData = book.getCoverImage();
+        Resource image = adminService.getCoverImage(cover, coverSize);
 
-        if (imageData == null || imageData.length == 0) {
+        if (image == null) {
             return ResponseEntity.notFound().build();
         }
 
-        try {
-            String contentType = getContentType(imageData);
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.valueOf(contentType));
-            return new ResponseEntity<>(imageData, headers, HttpStatus.OK);
-        } catch (MagicMatchNotFoundException | MagicException | MagicParseException ex) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+        //Статус меняется только когда картинка действительно будет отдана; тот же читатель может докачивать ее по Range
+        adminService.viewBookCover(bookId, personId);
+
+        return RangeUtil.buildResponse(servletRequest, image, resolveContentType(cover), eTag, lastModified);
+    }
+
+    @GetMapping("/{bookId}/coverStatus")
+    public ResponseEntity<CoverStatusDTO> getCoverStatus(@PathVariable("bookId") Long bookId) {
+        return ResponseEntity.of(adminService.getCoverStatus(bookId));
     }
 
     @GetMapping("/coverImages")
-    public ResponseEntity<List<String>> getAllCoverImageUrls() {
-        List<String> imageUrls = adminService.getAllCoverImagesUrl();
+    public ResponseEntity<CursorPageDTO<String>> getAllCoverImageUrls(@RequestParam(value = "cursor", required = false) String cursor,
+                                                                      @RequestParam(value = "size", required = false) Integer size) {
+        CursorPageDTO<String> imageUrls = adminService.getCoverImagesUrlPage(cursor, size);
         return ResponseEntity.ok(imageUrls);
     }
 
-    private String getContentType(byte[] imageData) throws MagicMatchNotFoundException, MagicException, MagicParseException {
-        MagicMatch match = Magic.getMagicMatch(imageData);
-        return match.getMimeType();
+    //Тип определяется при загрузке обложки; пустой content_type остается только у картинок неизвестного формата
+    private MediaType resolveContentType(BookCoverView cover) {
+        return cover.contentType() != null ? MediaType.valueOf(cover.contentType()) : MediaType.APPLICATION_OCTET_STREAM;
     }
 
     @GetMapping("/{bookId}/content")
     public ResponseEntity<?> getBookContent(@PathVariable("bookId") Long bookId, @RequestParam("personId") Long personId) {
-        try {
-            adminService.viewBookContent(bookId, personId);
-        } catch (IllegalStateException ex) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ex.getMessage());
-        }
-
-        Book book = adminService.findBookById(bookId);
-
-        if (book == null) {
-            return ResponseEntity.notFound().build();
-        }
+        adminService.viewBookContent(bookId, personId);
 
-        BookDTO bookDTO = new BookDTO(
-                book.getTitle(),
-                book.getYearOfProduction(),
-                book.getAuthor(),
-                book.getAnnotation(),
-                null
-        );
+        BookView book = adminService.findBookViewById(bookId);
 
-        return ResponseEntity.ok(bookDTO);
+        return ResponseEntity.ok(adminService.convertBookViewToBookDTO(book));
     }
 
     @PutMapping("/{bookId}/releaseAfterViewing")
     public ResponseEntity<String> releaseBookAfterViewing(@PathVariable Long bookId) {
-        try {
-            adminService.releaseBookAfterViewing(bookId);
-            return ResponseEntity.ok("Book released successfully");
-        } catch (RuntimeException ex) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
-        }
+        adminService.releaseBookAfterViewing(bookId);
+        return ResponseEntity.ok("Book released successfully");
     }
 
     //!ExceptionHandlers
@@ -288,6 +295,15 @@ public class AdminController {
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler({InvalidPersonIdsException.class})
+    public ResponseEntity<PersonErrorResponse> handleInvalidPersonIdsException(InvalidPersonIdsException ex) {
+        PersonErrorResponse response = new PersonErrorResponse(
+                ex.getMessage(), new Date()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler({PersonNotCreatedException.class})
     public ResponseEntity<PersonErrorResponse> handleException(PersonNotCreatedException ex) {
         PersonErrorResponse response = new PersonErrorResponse(
@@ -316,8 +332,18 @@ public class AdminController {
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
 
-    @ExceptionHandler({MalformedURLException.class})
-    public ResponseEntity<ImageErrorResponse> handleMalformedURLException(MalformedURLException ex) {
+    //Статус книги уже сменил другой запрос
+    @ExceptionHandler({BookStatusConflictException.class})
+    public ResponseEntity<BookErrorResponse> handleBookStatusConflictException(BookStatusConflictException ex) {
+        BookErrorResponse response = new BookErrorResponse(
+                ex.getMessage(), new Date()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler({MalformedURLException.class, MalformedUrlException.class})
+    public ResponseEntity<ImageErrorResponse> handleMalformedURLException(Exception ex) {
         ImageErrorResponse response = new ImageErrorResponse(
                 "Invalid URL: " + ex.getMessage(), new Date()
         );
@@ -325,4 +351,32 @@ public class AdminController {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler({UnsupportedImageFormatException.class})
+    public ResponseEntity<ImageErrorResponse> handleUnsupportedImageFormatException(UnsupportedImageFormatException ex) {
+        ImageErrorResponse response = new ImageErrorResponse(
+                ex.getMessage(), new Date()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler({InvalidCoverSizeException.class})
+    public ResponseEntity<ImageErrorResponse> handleInvalidCoverSizeException(InvalidCoverSizeException ex) {
+        ImageErrorResponse response = new ImageErrorResponse(
+                ex.getMessage(),
+                new Date()
+        );
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler({PasswordHashingRejectedException.class})
+    public ResponseEntity<AuthErrorResponse> handlePasswordHashingRejectedException(PasswordHashingRejectedException ex) {
+        AuthErrorResponse response = new AuthErrorResponse(
+                ex.getMessage(), new Date()
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response);
+    }
 }
@@ -3,6 +3,10 @@ package ru.library.controllers;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -12,16 +16,24 @@ import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
 import ru.library.dto.AuthDTO;
+import ru.library.dto.NameAvailabilityDTO;
 import ru.library.dto.PersonDTO;
+import ru.library.exceptions.auth_exp.AuthErrorResponse;
+import ru.library.exceptions.auth_exp.PasswordHashingRejectedException;
 import ru.library.models.Person;
 import ru.library.models.Role;
+import ru.library.security.PasswordHashingExecutor;
 import ru.library.security.PersonDetails;
+import ru.library.security.TokenRevocationService;
 import ru.library.services.admin_service.AdminService;
+import ru.library.services.people_service.NameAvailabilityService;
 import ru.library.util.JWTUtil;
 import ru.library.validation.PersonValidator;
 
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/auth")
@@ -32,31 +44,40 @@ public class AuthController {
     private final JWTUtil jwtUtil;
     private final PersonValidator personValidator;
     private final AuthenticationManager authenticationManager;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final TokenRevocationService tokenRevocationService;
+    private final NameAvailabilityService nameAvailabilityService;
 
 
     @Autowired
-    public AuthController(AdminService adminService, JWTUtil jwtUtil, PersonValidator personValidator, AuthenticationManager authenticationManager) {
+    public AuthController(AdminService adminService, JWTUtil jwtUtil, PersonValidator personValidator, AuthenticationManager authenticationManager, PasswordHashingExecutor passwordHashingExecutor, TokenRevocationService tokenRevocationService, NameAvailabilityService nameAvailabilityService) {
         this.adminService = adminService;
         this.jwtUtil = jwtUtil;
         this.personValidator = personValidator;
         this.authenticationManager = authenticationManager;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.tokenRevocationService = tokenRevocationService;
+        this.nameAvailabilityService = nameAvailabilityService;
     }
 
     @PostMapping("/login")
-    public Map<String, String> login(@RequestBody AuthDTO authDTO) {
+    public CompletableFuture<Map<String, String>> login(@RequestBody AuthDTO authDTO) {
         UsernamePasswordAuthenticationToken userToken = new UsernamePasswordAuthenticationToken(authDTO.getName(), authDTO.getPassword());
 
-        try {
-            Authentication authenticate = authenticationManager.authenticate(userToken);
+        //Проверка BCrypt идет в пуле password-hashing, поток Tomcat освобождается до ее окончания (async ответ)
+        return passwordHashingExecutor.submit(() -> {
+            try {
+                Authentication authenticate = authenticationManager.authenticate(userToken);
 
-            PersonDetails personDetails = (PersonDetails) authenticate.getPrincipal();
+                PersonDetails personDetails = (PersonDetails) authenticate.getPrincipal();
 
-            String token = jwtUtil.generateToken(personDetails.getUsername(), personDetails.getPerson().getRole());
+                String token = jwtUtil.generateToken(personDetails.getPerson().getId(), personDetails.getUsername(), personDetails.getPerson().getRole());
 
-            return Map.of("jwt-token", token);
-        } catch (AuthenticationException e) {
-            return Map.of("error", "incorrect login or password");
-        }
+                return Map.of("jwt-token", token);
+            } catch (AuthenticationException e) {
+                return Map.of("error", "incorrect login or password");
+            }
+        });
     }
 
     @PostMapping("/registration")
@@ -67,9 +88,8 @@ public class AuthController {
             personDTO.setRole(Role.ROLE_USER);
         }
 
-        Person person = adminService.convertPersonDTOToPerson(personDTO);
-
-        personValidator.validate(person, bindingResult);
+        //Занятость имени проверяется до конвертации: там хешируется пароль, а для занятого имени это лишняя работа
+        personValidator.validate(personDTO, bindingResult);
 
         if(bindingResult.hasErrors()){
             Map<String, String> errors = new HashMap<>();
@@ -79,19 +99,47 @@ public class AuthController {
             return Map.of("message", errors.toString());
         }
 
+        Person person = adminService.convertPersonDTOToPerson(personDTO);
 
-        adminService.save(person);
+        try {
+            adminService.save(person);
+        } catch (DataIntegrityViolationException e) {
+            //Имя заняли параллельной регистрацией или на другом экземпляре после проверки - сработал уникальный индекс
+            return Map.of("message", "User with such name or email already exists");
+        }
 
-        String token = jwtUtil.generateToken(person.getName(), person.getRole());
+        String token = jwtUtil.generateToken(person.getId(), person.getName(), person.getRole());
 
         return Map.of("jwt-token", token);
     }
 
+    @GetMapping("/availability")
+    public NameAvailabilityDTO checkNameAvailability(@RequestParam("name") String name) {
+        return new NameAvailabilityDTO(name, !nameAvailabilityService.isTaken(name));
+    }
+
+    //JWTFilter уже проверил токен, поэтому validateToken здесь берет его из кеша проверенных
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader) {
+        tokenRevocationService.revokeToken(jwtUtil.validateToken(authHeader.substring(7)));
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/show")
     public String showAuthenticatedUsers() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         PersonDetails principal = (PersonDetails) authentication.getPrincipal();
         return principal.getUsername();
     }
-}
 
+    @ExceptionHandler({PasswordHashingRejectedException.class})
+    public ResponseEntity<AuthErrorResponse> handlePasswordHashingRejectedException(PasswordHashingRejectedException ex) {
+        AuthErrorResponse response = new AuthErrorResponse(
+                ex.getMessage(), new Date()
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response);
+    }
+}
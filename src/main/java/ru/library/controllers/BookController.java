@@ -1,23 +1,32 @@
 package ru.library.controllers;
 
-import net.sf.jmimemagic.*;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpHeaders;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.library.dto.BookCoverView;
 import ru.library.dto.BookDTO;
+import ru.library.dto.BookView;
+import ru.library.dto.CursorPageDTO;
 import ru.library.exceptions.book_exp.BookErrorResponse;
 import ru.library.exceptions.book_exp.BookNotCreatedException;
 import ru.library.exceptions.book_exp.BookNotFoundException;
+import ru.library.exceptions.book_exp.BookStatusConflictException;
 import ru.library.exceptions.img_exp.ImageErrorResponse;
-import ru.library.models.Book;
+import ru.library.exceptions.img_exp.InvalidCoverSizeException;
+import ru.library.models.CoverSize;
 import ru.library.services.book_service.BookService;
+import ru.library.util.ETagUtil;
+import ru.library.util.RangeUtil;
 
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.util.Date;
-import java.util.List;
 
 @RestController
 @RequestMapping("api/books")
@@ -30,106 +39,98 @@ public class BookController {
     }
 
     @GetMapping()
-    public List<BookDTO> getAllBooks() {
-        List<Book> allBooks = bookService.getAllBooks();
+    public CursorPageDTO<BookDTO> getAllBooks(@RequestParam(value = "cursor", required = false) String cursor,
+                                              @RequestParam(value = "size", required = false) Integer size) {
+        CursorPageDTO<BookView> booksPage = bookService.getBooksPage(cursor, size);
 
-        return allBooks.stream()
-                .map(bookService::convertBookToBookDTO)
-                .toList();
+        return booksPage.map(bookService::convertBookViewToBookDTO);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        StreamingResponseBody body = bookService::exportBooks;
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @GetMapping("/{id}")
-    public BookDTO getBookById(@PathVariable("id") Long bookId) {
-        Book bookById = bookService.findBookById(bookId);
+    public ResponseEntity<BookDTO> getBookById(@PathVariable("id") Long bookId) {
+        BookView bookById = bookService.findBookViewById(bookId);
+
+        //По ETag/Last-Modified Spring сам ответит 304 на If-None-Match/If-Modified-Since
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(ETagUtil.bookETag(bookById));
 
-        return bookService.convertBookToBookDTO(bookById);
+        if (bookById.updatedAt() != null) {
+            response.lastModified(ETagUtil.lastModified(bookById.updatedAt()));
+        }
 
+        return response.body(bookService.convertBookViewToBookDTO(bookById));
     }
 
     @GetMapping("/{bookId}/coverImage")
-    public ResponseEntity<byte[]> getCoverImage(@PathVariable("bookId") Long bookId, @RequestParam("personId") Long personId ) {
-        try {
-            bookService.viewBookCover(bookId, personId);
-        } catch (IllegalStateException ex) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ex.getMessage().getBytes());
+    public ResponseEntity<Resource> getCoverImage(@PathVariable("bookId") Long bookId, @RequestParam("personId") Long personId,
+                                                  @RequestParam(value = "size", required = false) String size,
+                                                  WebRequest request, HttpServletRequest servletRequest) throws IOException {
+        CoverSize coverSize = CoverSize.fromParam(size);
+        BookCoverView cover = bookService.findCoverViewById(bookId, coverSize);
+
+        if (cover == null || cover.coverSize() == null || cover.coverSize() == 0) {
+            return ResponseEntity.notFound().build();
         }
 
-        Book book = bookService.findBookById(bookId);
+        //Если у клиента актуальная версия обложки, отвечаем 304 не читая байты картинки и не трогая статус книги
+        String eTag = ETagUtil.coverETag(cover);
+        long lastModified = ETagUtil.lastModified(cover.updatedAt());
 
-        if (book == null) {
-            return ResponseEntity.notFound().build();
+        if (request.checkNotModified(eTag, lastModified)) {
+            return null;
         }
 
-        byte[] imageData = book.getCoverImage();
+        Resource image = bookService.getCoverImage(cover, coverSize);
 
-        if (imageData == null || imageData.length == 0) {
+        if (image == null) {
             return ResponseEntity.notFound().build();
         }
 
-        try {
-            String contentType = getContentType(imageData);
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.valueOf(contentType));
-            return new ResponseEntity<>(imageData, headers, HttpStatus.OK);
-        } catch (MagicMatchNotFoundException | MagicException | MagicParseException ex) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+        //Статус меняется только когда картинка действительно будет отдана; тот же читатель может докачивать ее по Range
+        bookService.viewBookCover(bookId, personId);
+
+        return RangeUtil.buildResponse(servletRequest, image, resolveContentType(cover), eTag, lastModified);
     }
 
     @GetMapping("/coverImages")
-    public ResponseEntity<List<String>> getAllCoverImageUrls() {
-        List<String> imageUrls = bookService.getAllCoverImagesUrl();
+    public ResponseEntity<CursorPageDTO<String>> getAllCoverImageUrls(@RequestParam(value = "cursor", required = false) String cursor,
+                                                                      @RequestParam(value = "size", required = false) Integer size) {
+        CursorPageDTO<String> imageUrls = bookService.getCoverImagesUrlPage(cursor, size);
         return ResponseEntity.ok(imageUrls);
     }
 
-    private String getContentType(byte[] imageData) throws MagicMatchNotFoundException, MagicException, MagicParseException {
-        MagicMatch match = Magic.getMagicMatch(imageData);
-        return match.getMimeType();
+    //Тип определяется при загрузке обложки; пустой content_type остается только у картинок неизвестного формата
+    private MediaType resolveContentType(BookCoverView cover) {
+        return cover.contentType() != null ? MediaType.valueOf(cover.contentType()) : MediaType.APPLICATION_OCTET_STREAM;
     }
 
     @GetMapping("/{bookId}/content")
     public ResponseEntity<?> getBookContent(@PathVariable("bookId") Long bookId, @RequestParam("personId") Long personId) {
-        try {
-            bookService.viewBookContent(bookId, personId);
-        } catch (IllegalStateException ex) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ex.getMessage());
-        }
-
-        Book book = bookService.findBookById(bookId);
+        bookService.viewBookContent(bookId, personId);
 
-        if (book == null) {
-            return ResponseEntity.notFound().build();
-        }
-
-        BookDTO bookDTO = new BookDTO(
-                book.getTitle(),
-                book.getYearOfProduction(),
-                book.getAuthor(),
-                book.getAnnotation(),
-                null
-        );
+        BookView book = bookService.findBookViewById(bookId);
 
-        return ResponseEntity.ok(bookDTO);
+        return ResponseEntity.ok(bookService.convertBookViewToBookDTO(book));
     }
 
     @PutMapping("/{bookId}/releaseAfterViewing")
     public ResponseEntity<String> releaseBookAfterViewing(@PathVariable Long bookId) {
-        try {
-            bookService.releaseBookAfterViewing(bookId);
-            return ResponseEntity.ok("Book released successfully");
-        } catch (RuntimeException ex) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
-        }
+        bookService.releaseBookAfterViewing(bookId);
+        return ResponseEntity.ok("Book released successfully");
     }
 
     @PostMapping("/{id}/free")
     public ResponseEntity<String> freeBook(@PathVariable("id") Long bookId) {
-        try {
-            bookService.freeBook(bookId);
-            return ResponseEntity.ok("Book " + bookId + " free successfully");
-        } catch (RuntimeException ex) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
-        }
+        bookService.freeBook(bookId);
+        return ResponseEntity.ok("Book " + bookId + " free successfully");
     }
 
     @ExceptionHandler({BookNotCreatedException.class})
@@ -151,6 +152,16 @@ public class BookController {
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
 
+    //Статус книги уже сменил другой запрос
+    @ExceptionHandler({BookStatusConflictException.class})
+    public ResponseEntity<BookErrorResponse> handleBookStatusConflictException(BookStatusConflictException ex) {
+        BookErrorResponse response = new BookErrorResponse(
+                ex.getMessage(), new Date()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler({MalformedURLException.class})
     public ResponseEntity<ImageErrorResponse> handleMalformedURLException(MalformedURLException ex) {
         ImageErrorResponse response = new ImageErrorResponse(
@@ -159,4 +170,13 @@ public class BookController {
 
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
+
+    @ExceptionHandler({InvalidCoverSizeException.class})
+    public ResponseEntity<ImageErrorResponse> handleInvalidCoverSizeException(InvalidCoverSizeException ex) {
+        ImageErrorResponse response = new ImageErrorResponse(
+                ex.getMessage(),
+                new Date()
+        );
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
 }
@@ -0,0 +1,24 @@
+package ru.library.controllers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import ru.library.exceptions.page_exp.InvalidCursorException;
+import ru.library.exceptions.page_exp.PageErrorResponse;
+
+import java.util.Date;
+
+//Курсор разбирается в CursorUtil одинаково для всех постраничных эндпоинтов, поэтому и ответ на битый курсор один
+@RestControllerAdvice
+public class PageExceptionHandler {
+
+    @ExceptionHandler({InvalidCursorException.class})
+    public ResponseEntity<PageErrorResponse> handleInvalidCursorException(InvalidCursorException ex) {
+        PageErrorResponse response = new PageErrorResponse(
+                ex.getMessage(), new Date()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+}
@@ -1,13 +1,19 @@
 package ru.library.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.library.dto.BookDTO;
+import ru.library.dto.CursorPageDTO;
 import ru.library.dto.PersonDTO;
-import ru.library.models.Person;
+import ru.library.dto.PersonView;
+import ru.library.exceptions.person_exp.PersonErrorResponse;
+import ru.library.exceptions.person_exp.PersonNotFoundException;
 import ru.library.services.people_service.PeopleService;
+import ru.library.util.ETagUtil;
 
+import java.util.Date;
 import java.util.List;
 
 @RestController
@@ -21,19 +27,20 @@ public class PeopleController {
     }
 
     @GetMapping()
-    public List<PersonDTO> getAllPeople() {
-        List<Person> allPeople = peopleService.getAllPeople();
+    public CursorPageDTO<PersonDTO> getAllPeople(@RequestParam(value = "cursor", required = false) String cursor,
+                                                 @RequestParam(value = "size", required = false) Integer size) {
+        CursorPageDTO<PersonView> peoplePage = peopleService.getPeoplePage(cursor, size);
 
-        return allPeople.stream()
-                .map(peopleService::convertPersonToPersonDTO)
-                .toList();
+        return peoplePage.map(peopleService::convertPersonViewToPersonDTO);
     }
 
     @GetMapping("/{id}")
-    public PersonDTO getPersonById(@PathVariable("id") Long id) {
-        Person personById = peopleService.findPersonById(id);
+    public ResponseEntity<PersonDTO> getPersonById(@PathVariable("id") Long id) {
+        PersonView personById = peopleService.findPersonViewById(id);
 
-        return peopleService.convertPersonToPersonDTO(personById);
+        return ResponseEntity.ok()
+                .eTag(ETagUtil.personETag(personById))
+                .body(peopleService.convertPersonViewToPersonDTO(personById));
     }
 
     @GetMapping("/personsBook/{id}")
@@ -41,4 +48,13 @@ public class PeopleController {
         List<BookDTO> booksByPersonId = peopleService.getBooksByPersonId(id);
         return ResponseEntity.ok(booksByPersonId);
     }
+
+    @ExceptionHandler({PersonNotFoundException.class})
+    public ResponseEntity<PersonErrorResponse> handleException(PersonNotFoundException ex) {
+        PersonErrorResponse response = new PersonErrorResponse(
+                ex.getMessage(), new Date()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+    }
 }
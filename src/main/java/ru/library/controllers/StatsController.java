@@ -0,0 +1,39 @@
+package ru.library.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.library.dto.CacheStatsDTO;
+import ru.library.dto.CoverCacheStatsDTO;
+import ru.library.dto.PasswordHashingStatsDTO;
+import ru.library.services.stats_service.StatsService;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("api/admin/stats")
+public class StatsController {
+    private final StatsService statsService;
+
+    @Autowired
+    public StatsController(StatsService statsService) {
+        this.statsService = statsService;
+    }
+
+    @GetMapping("/caches")
+    public ResponseEntity<Map<String, CacheStatsDTO>> getCacheStats() {
+        return ResponseEntity.ok(statsService.getCacheStats());
+    }
+
+    @GetMapping("/covers")
+    public ResponseEntity<CoverCacheStatsDTO> getCoverCacheStats() {
+        return ResponseEntity.ok(statsService.getCoverCacheStats());
+    }
+
+    @GetMapping("/passwords")
+    public ResponseEntity<PasswordHashingStatsDTO> getPasswordHashingStats() {
+        return ResponseEntity.ok(statsService.getPasswordHashingStats());
+    }
+}
@@ -0,0 +1,11 @@
+package ru.library.dto;
+
+import java.time.LocalDateTime;
+
+//Метаданные обложки без самих байтов: по ним отвечаем на условные запросы
+public record BookCoverView(Long bookId,
+                            Integer coverSize,
+                            String contentHash,
+                            String contentType,
+                            LocalDateTime updatedAt) {
+}
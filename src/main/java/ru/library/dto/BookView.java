@@ -0,0 +1,12 @@
+package ru.library.dto;
+
+import java.time.LocalDateTime;
+
+//Проекция книги только с колонками, нужными для BookDTO: без обложки, владельца и служебных полей
+public record BookView(Long bookId,
+                       String title,
+                       Integer yearOfProduction,
+                       String author,
+                       String annotation,
+                       LocalDateTime updatedAt) {
+}
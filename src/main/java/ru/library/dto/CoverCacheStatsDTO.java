@@ -0,0 +1,20 @@
+package ru.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CoverCacheStatsDTO {
+    private long entries;
+    private long usedBytes;
+    private long capacityBytes;
+    private double occupancy;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+    private long rejectedCount;
+}
@@ -0,0 +1,13 @@
+package ru.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NameAvailabilityDTO {
+    private String name;
+    private boolean available;
+}
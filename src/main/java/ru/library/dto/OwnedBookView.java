@@ -0,0 +1,10 @@
+package ru.library.dto;
+
+//Проекция книги вместе с id владельца: книги нескольких людей приходят одним запросом и группируются по ownerId
+public record OwnedBookView(Long ownerId,
+                            Long bookId,
+                            String title,
+                            Integer yearOfProduction,
+                            String author,
+                            String annotation) {
+}
@@ -0,0 +1,21 @@
+package ru.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PasswordHashingStatsDTO {
+    private int strength;
+    private int threads;
+    private int activeCount;
+    private int queueDepth;
+    private int queueCapacity;
+    private long completedCount;
+    private long rejectedCount;
+    private double avgHashMillis;
+    private double maxHashMillis;
+    private double avgQueueWaitMillis;
+}
@@ -0,0 +1,12 @@
+package ru.library.dto;
+
+import ru.library.models.Role;
+
+//Проекция человека без пароля и списка книг
+public record PersonView(Long id,
+                         String name,
+                         Integer age,
+                         String email,
+                         String phoneNumber,
+                         Role role) {
+}
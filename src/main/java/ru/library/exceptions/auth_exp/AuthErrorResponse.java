@@ -0,0 +1,13 @@
+package ru.library.exceptions.auth_exp;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Date;
+
+@Data
+@AllArgsConstructor
+public class AuthErrorResponse {
+    private String message;
+    private Date date;
+}
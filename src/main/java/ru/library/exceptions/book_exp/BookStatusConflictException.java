@@ -0,0 +1,7 @@
+package ru.library.exceptions.book_exp;
+
+public class BookStatusConflictException extends RuntimeException {
+    public BookStatusConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package ru.library.exceptions.img_exp;
+
+import java.io.IOException;
+
+//Ошибка загрузки обложки по url. retryable=false - повтор не поможет (4xx, слишком большой ответ)
+public class CoverFetchException extends IOException {
+    private final boolean retryable;
+
+    public CoverFetchException(String message, boolean retryable) {
+        super(message);
+        this.retryable = retryable;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
@@ -0,0 +1,7 @@
+package ru.library.exceptions.img_exp;
+
+public class ImageTooLargeException extends RuntimeException {
+    public ImageTooLargeException(String message) {
+        super(message);
+    }
+}
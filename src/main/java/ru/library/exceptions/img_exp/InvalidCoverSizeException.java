@@ -0,0 +1,7 @@
+package ru.library.exceptions.img_exp;
+
+public class InvalidCoverSizeException extends RuntimeException {
+    public InvalidCoverSizeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.library.exceptions.img_exp;
+
+public class UnsupportedImageFormatException extends RuntimeException {
+    public UnsupportedImageFormatException(String message) {
+        super(message);
+    }
+}
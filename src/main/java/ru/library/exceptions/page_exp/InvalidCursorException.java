@@ -0,0 +1,7 @@
+package ru.library.exceptions.page_exp;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.library.exceptions.person_exp;
+
+public class InvalidPersonIdsException extends RuntimeException {
+    public InvalidPersonIdsException(String message) {
+        super(message);
+    }
+}
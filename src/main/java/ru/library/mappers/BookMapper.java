@@ -0,0 +1,40 @@
+package ru.library.mappers;
+
+import org.springframework.stereotype.Component;
+import ru.library.dto.BookDTO;
+import ru.library.models.Book;
+
+//Явное копирование полей вместо ModelMapper: без рефлексии и сопоставления имен на каждый вызов.
+//Набор полей тот же, что получался у ModelMapper: служебные поля, статус и владелец не переносятся
+@Component
+public class BookMapper {
+
+    public BookDTO toDto(Book book) {
+        if (book == null) {
+            return null;
+        }
+
+        return new BookDTO(
+                book.getTitle(),
+                book.getYearOfProduction(),
+                book.getAuthor(),
+                book.getAnnotation(),
+                null
+        );
+    }
+
+    //coverImageURL в Book не хранится - обложку загружает CoverIngestService
+    public Book toEntity(BookDTO bookDTO) {
+        if (bookDTO == null) {
+            return null;
+        }
+
+        Book book = new Book();
+        book.setTitle(bookDTO.getTitle());
+        book.setYearOfProduction(bookDTO.getYearOfProduction());
+        book.setAuthor(bookDTO.getAuthor());
+        book.setAnnotation(bookDTO.getAnnotation());
+
+        return book;
+    }
+}
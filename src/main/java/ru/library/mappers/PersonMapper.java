@@ -0,0 +1,41 @@
+package ru.library.mappers;
+
+import org.springframework.stereotype.Component;
+import ru.library.dto.PersonDTO;
+import ru.library.models.Person;
+
+//Явное копирование полей вместо ModelMapper, набор полей тот же
+@Component
+public class PersonMapper {
+
+    public PersonDTO toDto(Person person) {
+        if (person == null) {
+            return null;
+        }
+
+        return new PersonDTO(
+                person.getName(),
+                person.getAge(),
+                person.getEmail(),
+                person.getPhoneNumber(),
+                person.getPassword(),
+                person.getRole()
+        );
+    }
+
+    public Person toEntity(PersonDTO personDTO) {
+        if (personDTO == null) {
+            return null;
+        }
+
+        Person person = new Person();
+        person.setName(personDTO.getName());
+        person.setAge(personDTO.getAge());
+        person.setEmail(personDTO.getEmail());
+        person.setPhoneNumber(personDTO.getPhoneNumber());
+        person.setPassword(personDTO.getPassword());
+        person.setRole(personDTO.getRole());
+
+        return person;
+    }
+}
@@ -42,13 +42,17 @@ public class Book {
     @Column(name = "annotation")
     private String annotation;
 
-    @Column(name = "cover_image", columnDefinition = "bytea")
-    private byte[] coverImage;
-
     @Column(name = "status")
     @Enumerated(EnumType.STRING)
     private BookStatus status;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    @Column(name = "viewer_id")
+    private Long viewerId;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
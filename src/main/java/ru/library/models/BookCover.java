@@ -0,0 +1,35 @@
+package ru.library.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+//Обложка хранится отдельно от книги, чтобы выборки и смена статуса книги не тянули байты картинки
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "book_cover")
+public class BookCover {
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "image", columnDefinition = "bytea")
+    private byte[] image;
+
+    @Column(name = "cover_size")
+    private Integer coverSize;
+
+    @Column(name = "content_hash")
+    private String contentHash;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
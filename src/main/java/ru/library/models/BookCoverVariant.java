@@ -0,0 +1,34 @@
+package ru.library.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+//Уменьшенная копия обложки (64/256 px по большей стороне), которую отдают сетки каталога вместо оригинала
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "book_cover_variant")
+public class BookCoverVariant {
+    @EmbeddedId
+    private BookCoverVariantId id;
+
+    @Column(name = "image", columnDefinition = "bytea")
+    private byte[] image;
+
+    @Column(name = "cover_size")
+    private Integer coverSize;
+
+    @Column(name = "content_hash")
+    private String contentHash;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,21 @@
+package ru.library.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class BookCoverVariantId implements Serializable {
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "variant_size")
+    private Integer variantSize;
+}
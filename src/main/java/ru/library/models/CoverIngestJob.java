@@ -0,0 +1,40 @@
+package ru.library.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+//Задача на загрузку обложки по url: книга создается сразу, а картинку скачивает фоновый пул
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "cover_ingest_job")
+public class CoverIngestJob {
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "source_url")
+    private String sourceUrl;
+
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    private CoverStatus status;
+
+    @Column(name = "attempts")
+    private Integer attempts;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
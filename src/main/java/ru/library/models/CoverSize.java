@@ -0,0 +1,33 @@
+package ru.library.models;
+
+import ru.library.exceptions.img_exp.InvalidCoverSizeException;
+
+public enum CoverSize {
+    SMALL(64),
+    MEDIUM(256),
+    ORIGINAL(0);
+
+    private final int maxSide;
+
+    CoverSize(int maxSide) {
+        this.maxSide = maxSide;
+    }
+
+    public int getMaxSide() {
+        return maxSide;
+    }
+
+    public static CoverSize fromParam(String value) {
+        if (value == null || value.isBlank() || value.equalsIgnoreCase("original")) {
+            return ORIGINAL;
+        }
+
+        for (CoverSize size : values()) {
+            if (size != ORIGINAL && String.valueOf(size.maxSide).equals(value)) {
+                return size;
+            }
+        }
+
+        throw new InvalidCoverSizeException("Cover size must be 64, 256 or original");
+    }
+}
@@ -0,0 +1,7 @@
+package ru.library.models;
+
+public enum CoverStatus {
+    PENDING,
+    READY,
+    FAILED
+}
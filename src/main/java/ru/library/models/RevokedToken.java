@@ -0,0 +1,32 @@
+package ru.library.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+//Отзыв токенов: с jti - один конкретный токен (logout), без jti - все токены человека, выданные не позже revoked_at.
+//После expires_at запись не нужна: отозванные ею токены истекли сами
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "revoked_token")
+public class RevokedToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "jti")
+    private String jti;
+
+    @Column(name = "person_id")
+    private Long personId;
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,26 @@
+package ru.library.repositories;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.library.dto.BookCoverView;
+import ru.library.models.BookCover;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BookCoverRepository extends JpaRepository<BookCover, Long> {
+    @Query("select c.bookId from BookCover c, Book b " +
+            "where b.bookId = c.bookId and c.coverSize > 0 and b.removedAt is null order by c.bookId")
+    List<Long> findBookIdsWithCover();
+
+    @Query("select new ru.library.dto.BookCoverView(c.bookId, c.coverSize, c.contentHash, c.contentType, c.updatedAt) " +
+            "from BookCover c where c.bookId = :bookId")
+    Optional<BookCoverView> findViewById(@Param("bookId") Long bookId);
+
+    @Query("select c.bookId from BookCover c where c.image is not null order by c.bookId")
+    List<Long> findBookIdsWithStoredImage(Limit limit);
+}
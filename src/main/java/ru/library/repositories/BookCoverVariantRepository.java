@@ -0,0 +1,28 @@
+package ru.library.repositories;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.library.dto.BookCoverView;
+import ru.library.models.BookCoverVariant;
+import ru.library.models.BookCoverVariantId;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BookCoverVariantRepository extends JpaRepository<BookCoverVariant, BookCoverVariantId> {
+    @Query("select new ru.library.dto.BookCoverView(v.id.bookId, v.coverSize, v.contentHash, v.contentType, v.updatedAt) " +
+            "from BookCoverVariant v where v.id.bookId = :bookId and v.id.variantSize = :variantSize")
+    Optional<BookCoverView> findViewById(@Param("bookId") Long bookId, @Param("variantSize") Integer variantSize);
+
+    @Query("select v.id from BookCoverVariant v where v.image is not null order by v.id.bookId, v.id.variantSize")
+    List<BookCoverVariantId> findIdsWithStoredImage(Limit limit);
+
+    @Modifying
+    @Query("delete from BookCoverVariant v where v.id.bookId = :bookId")
+    void deleteByBookId(@Param("bookId") Long bookId);
+}
@@ -1,12 +1,84 @@
 package ru.library.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.library.dto.BookView;
+import ru.library.dto.OwnedBookView;
 import ru.library.models.Book;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
     List<Book> findByRemovedAtNotNull();
+
+    @Query("select new ru.library.dto.BookView(b.bookId, b.title, b.yearOfProduction, b.author, b.annotation, b.updatedAt) " +
+            "from Book b where b.bookId > :afterId order by b.bookId")
+    List<BookView> findViewsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("select new ru.library.dto.BookView(b.bookId, b.title, b.yearOfProduction, b.author, b.annotation, b.updatedAt) " +
+            "from Book b where b.removedAt is not null and b.bookId > :afterId order by b.bookId")
+    List<BookView> findDeletedViewsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("select new ru.library.dto.BookView(b.bookId, b.title, b.yearOfProduction, b.author, b.annotation, b.updatedAt) " +
+            "from Book b where b.bookId = :bookId")
+    Optional<BookView> findViewById(@Param("bookId") Long bookId);
+
+    //Книги владельцев сразу в DTO: b.bookOwner.id берется из person_id самой книги, join с person и ленивая
+    //инициализация Person.books не нужны
+    @Query("select new ru.library.dto.OwnedBookView(b.bookOwner.id, b.bookId, b.title, b.yearOfProduction, b.author, b.annotation) " +
+            "from Book b where b.bookOwner.id = :personId order by b.bookId")
+    List<OwnedBookView> findOwnedViewsByPersonId(@Param("personId") Long personId);
+
+    @Query("select new ru.library.dto.OwnedBookView(b.bookOwner.id, b.bookId, b.title, b.yearOfProduction, b.author, b.annotation) " +
+            "from Book b where b.bookOwner.id in :personIds order by b.bookOwner.id, b.bookId")
+    List<OwnedBookView> findOwnedViewsByPersonIds(@Param("personIds") Collection<Long> personIds);
+
+    //Переходы статуса - один UPDATE с текущим статусом в условии: из двух параллельных запросов строку меняет
+    //только первый, второй получает 0 строк. Статусы - литералы в запросе, как и в CoverIngestJobRepository
+    @Modifying(clearAutomatically = true)
+    @Query("update Book b set b.status = ru.library.models.BookStatus.ASSIGNED, b.bookOwner.id = :personId, b.version = b.version + 1 " +
+            "where b.bookId = :bookId and b.status = ru.library.models.BookStatus.FREE")
+    int assignIfFree(@Param("bookId") Long bookId, @Param("personId") Long personId);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Book b set b.status = ru.library.models.BookStatus.FREE, b.bookOwner = null, b.version = b.version + 1 " +
+            "where b.bookId = :bookId and b.status = ru.library.models.BookStatus.ASSIGNED")
+    int freeIfAssigned(@Param("bookId") Long bookId);
+
+    //Тот же читатель может запросить обложку снова (Range после обрыва загрузки), пока сам ее смотрит
+    @Modifying(clearAutomatically = true)
+    @Query("update Book b set b.status = ru.library.models.BookStatus.VIEWING_COVER, b.viewerId = :personId, b.version = b.version + 1 " +
+            "where b.bookId = :bookId and (b.status = ru.library.models.BookStatus.FREE " +
+            "or (b.status = ru.library.models.BookStatus.VIEWING_COVER and b.viewerId = :personId))")
+    int viewCoverIfAvailable(@Param("bookId") Long bookId, @Param("personId") Long personId);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Book b set b.status = ru.library.models.BookStatus.VIEWING_CONTENT, b.version = b.version + 1 " +
+            "where b.bookId = :bookId and b.status = ru.library.models.BookStatus.FREE")
+    int viewContentIfFree(@Param("bookId") Long bookId);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Book b set b.status = ru.library.models.BookStatus.FREE, b.viewerId = null, b.version = b.version + 1 " +
+            "where b.bookId = :bookId and b.status in (ru.library.models.BookStatus.VIEWING_COVER, ru.library.models.BookStatus.VIEWING_CONTENT)")
+    int releaseIfViewing(@Param("bookId") Long bookId);
+
+    //Курсор по всему каталогу для выгрузки: строки приходят из PostgreSQL порциями по fetch size, а не одним списком
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new ru.library.dto.BookView(b.bookId, b.title, b.yearOfProduction, b.author, b.annotation, b.updatedAt) " +
+            "from Book b order by b.bookId")
+    Stream<BookView> streamAllViews();
 }
@@ -0,0 +1,41 @@
+package ru.library.repositories;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.library.models.CoverIngestJob;
+import ru.library.models.CoverStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CoverIngestJobRepository extends JpaRepository<CoverIngestJob, Long> {
+    //Статус - литерал, а не параметр: иначе в общем (generic) плане PostgreSQL не может доказать условие
+    //частичного индекса cover_ingest_job_due_idx (status = 'PENDING') и читает всю таблицу
+    @Query("select j.bookId from CoverIngestJob j " +
+            "where j.status = ru.library.models.CoverStatus.PENDING and j.nextAttemptAt <= :now order by j.nextAttemptAt")
+    List<Long> findDuePendingBookIds(@Param("now") LocalDateTime now, Limit limit);
+
+    //Результат воркера пишется, только если задача та же, что он прочитал: enqueue на ту же книгу во время загрузки
+    //меняет source_url/updated_at/attempts, и тогда 0 строк - результат старой задачи отбрасывается
+    @Transactional
+    @Modifying
+    @Query("update CoverIngestJob j set j.status = :status, j.attempts = :attempts, j.lastError = :lastError, " +
+            "j.nextAttemptAt = :nextAttemptAt, j.updatedAt = :updatedAt " +
+            "where j.bookId = :bookId and j.sourceUrl = :sourceUrl " +
+            "and j.updatedAt = :readUpdatedAt and j.attempts = :readAttempts")
+    int updateIfUnchanged(@Param("bookId") Long bookId,
+                          @Param("sourceUrl") String sourceUrl,
+                          @Param("readUpdatedAt") LocalDateTime readUpdatedAt,
+                          @Param("readAttempts") Integer readAttempts,
+                          @Param("status") CoverStatus status,
+                          @Param("attempts") Integer attempts,
+                          @Param("lastError") String lastError,
+                          @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                          @Param("updatedAt") LocalDateTime updatedAt);
+}
@@ -1,14 +1,35 @@
 package ru.library.repositories;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.library.dto.PersonView;
 import ru.library.models.Person;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PeopleRepository extends JpaRepository<Person, Long> {
     List<Person> findByRemovedAtNotNull();
     Optional<Person> findByName(String name);
+    boolean existsByName(String name);
+
+    @Query("select p.name from Person p")
+    Stream<String> streamAllNames();
+
+    @Query("select new ru.library.dto.PersonView(p.id, p.name, p.age, p.email, p.phoneNumber, p.role) " +
+            "from Person p where p.id > :afterId order by p.id")
+    List<PersonView> findViewsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("select new ru.library.dto.PersonView(p.id, p.name, p.age, p.email, p.phoneNumber, p.role) " +
+            "from Person p where p.removedAt is not null and p.id > :afterId order by p.id")
+    List<PersonView> findDeletedViewsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("select new ru.library.dto.PersonView(p.id, p.name, p.age, p.email, p.phoneNumber, p.role) " +
+            "from Person p where p.id = :id")
+    Optional<PersonView> findViewById(@Param("id") Long id);
 }
@@ -7,6 +7,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -15,22 +16,30 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import ru.library.models.Role;
 import ru.library.util.JWTUtil;
 
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Locale;
 
 @Component
 public class JWTFilter extends OncePerRequestFilter {
 
     private final JWTUtil jwtUtil;
     private final PersonDetailsService personDetailsService;
+    private final TokenRevocationService tokenRevocationService;
+    private final PrincipalSource principalSource;
 
+    //По умолчанию claims: удаление человека и смена роли закрываются отзывом токенов, а не запросом в БД на каждый запрос
     @Autowired
-    public JWTFilter(JWTUtil jwtUtil, PersonDetailsService personDetailsService) {
+    public JWTFilter(JWTUtil jwtUtil, PersonDetailsService personDetailsService, TokenRevocationService tokenRevocationService,
+                     @Value("${library.security.principal-source:claims}") String principalSource) {
         this.jwtUtil = jwtUtil;
         this.personDetailsService = personDetailsService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.principalSource = PrincipalSource.valueOf(principalSource.trim().toUpperCase(Locale.ROOT));
     }
 
     @Override
@@ -45,14 +54,21 @@ public class JWTFilter extends OncePerRequestFilter {
 
             if (token.isBlank()) {
                 response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token is empty");
+                return;
             } else {
                 try {
                     DecodedJWT decodedJWT = jwtUtil.validateToken(token);
 
+                    if (tokenRevocationService.isRevoked(decodedJWT)) {
+                        response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token has been revoked");
+                        return;
+                    }
+
+                    Long personId = decodedJWT.getClaim("id").asLong();
                     String username = decodedJWT.getClaim("username").asString();
                     String role = decodedJWT.getClaim("role").asString();
 
-                    UserDetails userDetails = personDetailsService.loadUserByUsername(username);
+                    UserDetails userDetails = resolvePrincipal(personId, username, role);
 
                     Collection<GrantedAuthority> authorities = Collections.singletonList(new SimpleGrantedAuthority(role));
 
@@ -66,11 +82,32 @@ public class JWTFilter extends OncePerRequestFilter {
                         SecurityContextHolder.getContext().setAuthentication(authenticationToken);
                     }
 
-                } catch (JWTVerificationException | UsernameNotFoundException e) {
+                } catch (JWTVerificationException | UsernameNotFoundException | IllegalArgumentException e) {
                     response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid JWT-token");
+                    return;
                 }
             }
         }
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    //Токены, выпущенные до появления claim id, по-прежнему проверяются запросом по имени
+    private UserDetails resolvePrincipal(Long personId, String username, String role) {
+        if (personId == null || principalSource == PrincipalSource.DATABASE) {
+            return personDetailsService.loadUserByUsername(username);
+        }
+
+        if (principalSource == PrincipalSource.CLAIMS) {
+            return PersonDetails.fromClaims(personId, username, Role.valueOf(role));
+        }
+
+        PersonDetails personDetails = personDetailsService.loadUserById(personId);
+
+        //Человека переименовали после выдачи токена - ведем себя как поиск по имени, который бы его не нашел
+        if (!personDetails.getUsername().equals(username)) {
+            throw new UsernameNotFoundException("User not found");
+        }
+
+        return personDetails;
+    }
+}
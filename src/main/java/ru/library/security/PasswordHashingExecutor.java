@@ -0,0 +1,115 @@
+package ru.library.security;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import ru.library.dto.PasswordHashingStatsDTO;
+import ru.library.exceptions.auth_exp.PasswordHashingRejectedException;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+//Отдельный ограниченный пул для BCrypt: вход и регистрация не занимают CPU потоков Tomcat сверх threads,
+//а при заполненной очереди запрос сразу получает 503 с Retry-After вместо ожидания
+@Component
+public class PasswordHashingExecutor {
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final int strength;
+    private final int queueCapacity;
+    private final long retryAfterSeconds;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Long::max, 0);
+    private final AtomicLong threadCounter = new AtomicLong();
+
+    @Autowired
+    public PasswordHashingExecutor(PasswordEncoder passwordEncoder,
+                                   @Value("${library.security.bcrypt.strength:10}") int strength,
+                                   @Value("${library.security.bcrypt.threads:0}") int threads,
+                                   @Value("${library.security.bcrypt.queue-capacity:64}") int queueCapacity,
+                                   @Value("${library.security.bcrypt.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.passwordEncoder = passwordEncoder;
+        this.strength = strength;
+        this.queueCapacity = queueCapacity;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        //0 - половина ядер, чтобы обычным запросам всегда оставался CPU
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long enqueuedAt = System.nanoTime();
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.nanoTime();
+                queueWaitNanos.add(startedAt - enqueuedAt);
+
+                try {
+                    return task.get();
+                } finally {
+                    long elapsed = System.nanoTime() - startedAt;
+                    hashNanos.add(elapsed);
+                    maxHashNanos.accumulate(elapsed);
+                    completed.increment();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException("Too many password operations in progress, try again later", retryAfterSeconds);
+        }
+    }
+
+    //Для кода, которому нужен результат сразу (регистрация, правка человека админом): ждем в вызывающем потоке,
+    //но сам BCrypt идет в пуле, и число таких ожидающих ограничено threads + queue-capacity.
+    //Блокировка здесь намеренная: эти пути редкие, а хеш нужен до сохранения человека в той же транзакции.
+    //Частый путь - вход - не ждет, а возвращает future из submit (async ответ в AuthController.login)
+    public String encode(String rawPassword) {
+        try {
+            return submit(() -> passwordEncoder.encode(rawPassword)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public PasswordHashingStatsDTO getStats() {
+        long count = completed.sum();
+
+        return new PasswordHashingStatsDTO(
+                strength,
+                executor.getMaximumPoolSize(),
+                executor.getActiveCount(),
+                executor.getQueue().size(),
+                queueCapacity,
+                count,
+                rejected.sum(),
+                count == 0 ? 0 : hashNanos.sum() / 1_000_000.0 / count,
+                maxHashNanos.get() / 1_000_000.0,
+                count == 0 ? 0 : queueWaitNanos.sum() / 1_000_000.0 / count
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
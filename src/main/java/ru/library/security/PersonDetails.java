@@ -4,6 +4,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import ru.library.models.Person;
+import ru.library.models.Role;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -15,6 +16,16 @@ public class PersonDetails implements UserDetails {
         this.person = person;
     }
 
+    //Principal из проверенных claims токена, без запроса в БД: у Person заполнены только id, имя и роль
+    public static PersonDetails fromClaims(Long id, String username, Role role) {
+        Person person = new Person();
+        person.setId(id);
+        person.setName(username);
+        person.setRole(role);
+
+        return new PersonDetails(person);
+    }
+
     public Person getPerson() {
         return person;
     }
@@ -1,17 +1,22 @@
 package ru.library.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.library.config.CacheConfig;
 import ru.library.models.Person;
 import ru.library.repositories.PeopleRepository;
 
 import java.util.Optional;
 
 @Service
-public class PersonDetailsService implements UserDetailsService {
+public class PersonDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final PeopleRepository peopleRepository;
 
@@ -31,4 +36,26 @@ public class PersonDetailsService implements UserDetailsService {
 
         return new PersonDetails(person.get());
     }
+
+    //Поиск по первичному ключу вместо full_name; в режиме cache результат живет в кеше principals до изменения человека
+    @Cacheable(cacheNames = CacheConfig.PRINCIPALS_CACHE, key = "#id")
+    public PersonDetails loadUserById(Long id) throws UsernameNotFoundException {
+        Person person = peopleRepository.findById(id)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+
+        return new PersonDetails(person);
+    }
+
+    //Вызывается DaoAuthenticationProvider после успешного входа, если cost хеша отличается от library.security.bcrypt.strength
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRINCIPALS_CACHE, key = "#user.person.id")
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Person person = ((PersonDetails) user).getPerson();
+
+        peopleRepository.findById(person.getId()).ifPresent(stored -> stored.setPassword(newPassword));
+        person.setPassword(newPassword);
+
+        return user;
+    }
 }
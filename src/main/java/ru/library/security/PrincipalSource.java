@@ -0,0 +1,9 @@
+package ru.library.security;
+
+//Откуда JWTFilter берет principal для проверенного токена (library.security.principal-source):
+//CLAIMS - только из claims токена, CACHE - по id из кеша principals с загрузкой из БД при промахе, DATABASE - запрос по имени на каждый запрос
+public enum PrincipalSource {
+    CLAIMS,
+    CACHE,
+    DATABASE
+}
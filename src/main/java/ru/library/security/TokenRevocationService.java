@@ -0,0 +1,155 @@
+package ru.library.security;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.library.models.RevokedToken;
+import ru.library.repositories.RevokedTokenRepository;
+import ru.library.util.BloomFilter;
+import ru.library.util.TransactionUtil;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Список отозванных токенов: источник правды - таблица revoked_token, проверка на каждом запросе идет только по памяти.
+//jti сначала проверяется Bloom-фильтром (почти всегда "точно нет"), при срабатывании - точным множеством.
+//Отзыв всех токенов человека хранится как момент отзыва: токен с iat не позже него недействителен.
+//Периодический refresh подтягивает отзывы с других экземпляров и чистит истекшие записи
+@Service
+@Slf4j
+public class TokenRevocationService {
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final Duration tokenTtl;
+    private final long expectedRevocations;
+
+    private final Object lock = new Object();
+    //Отзывы этого экземпляра, сделанные во время refresh, чтобы новый снимок их не потерял
+    private final List<RevokedToken> recentRevocations = new ArrayList<>();
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  @Value("${jwt.ttl:60m}") Duration tokenTtl,
+                                  @Value("${library.security.revocation.expected-size:10000}") long expectedRevocations) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.tokenTtl = tokenTtl;
+        this.expectedRevocations = expectedRevocations;
+        this.snapshot = Snapshot.empty(expectedRevocations);
+    }
+
+    public boolean isRevoked(DecodedJWT jwt) {
+        Snapshot current = snapshot;
+
+        String jti = jwt.getId();
+        if (jti != null && current.jtiFilter().mightContain(jti) && current.jtis().contains(jti)) {
+            return true;
+        }
+
+        Long personId = jwt.getClaim("id").asLong();
+        if (personId == null) {
+            return false;
+        }
+
+        Instant revokedAt = current.personRevokedAt().get(personId);
+        Instant issuedAt = jwt.getIssuedAtAsInstant();
+
+        //iat хранится с точностью до секунды, поэтому токен, выданный в ту же секунду, что и отзыв, тоже отклоняется
+        return revokedAt != null && (issuedAt == null || !issuedAt.isAfter(revokedAt.truncatedTo(ChronoUnit.SECONDS)));
+    }
+
+    //Выход: отзывается только этот токен, запись живет до его exp
+    @Transactional
+    public void revokeToken(DecodedJWT jwt) {
+        if (jwt.getId() == null) {
+            //Токен выдан до появления jti - отозвать его точечно нельзя, отзываем все токены владельца
+            revokePerson(jwt.getClaim("id").asLong());
+            return;
+        }
+
+        Instant expiresAt = jwt.getExpiresAtAsInstant() != null ? jwt.getExpiresAtAsInstant() : Instant.now().plus(tokenTtl);
+
+        save(jwt.getId(), jwt.getClaim("id").asLong(), expiresAt);
+    }
+
+    //Удаление человека или смена роли: все выданные ему токены перестают действовать
+    @Transactional
+    public void revokePerson(Long personId) {
+        if (personId == null) {
+            return;
+        }
+
+        save(null, personId, Instant.now().plus(tokenTtl));
+    }
+
+    @Scheduled(fixedDelayString = "${library.security.revocation.refresh-ms:30000}")
+    @Transactional
+    public void refresh() {
+        LocalDateTime now = LocalDateTime.now();
+
+        int purged = revokedTokenRepository.deleteExpired(now);
+        List<RevokedToken> revocations = revokedTokenRepository.findByExpiresAtAfter(now);
+
+        synchronized (lock) {
+            recentRevocations.removeIf(revocation -> revocation.getRevokedAt().isBefore(now.minusMinutes(1)));
+
+            Snapshot next = Snapshot.empty(Math.max(expectedRevocations, 2L * (revocations.size() + recentRevocations.size())));
+            revocations.forEach(next::add);
+            recentRevocations.forEach(next::add);
+
+            snapshot = next;
+        }
+
+        if (purged > 0) {
+            log.debug("Purged {} expired token revocations", purged);
+        }
+    }
+
+    private void save(String jti, Long personId, Instant expiresAt) {
+        RevokedToken revocation = new RevokedToken();
+        revocation.setJti(jti);
+        revocation.setPersonId(personId);
+        revocation.setRevokedAt(LocalDateTime.now());
+        revocation.setExpiresAt(LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()));
+
+        revokedTokenRepository.save(revocation);
+
+        //В память - только после коммита, чтобы откат изменения человека не оставил его токены отозванными
+        TransactionUtil.afterCommit(() -> {
+            synchronized (lock) {
+                recentRevocations.add(revocation);
+                snapshot.add(revocation);
+            }
+        });
+    }
+
+    private record Snapshot(BloomFilter jtiFilter, Set<String> jtis, Map<Long, Instant> personRevokedAt) {
+        static Snapshot empty(long expectedSize) {
+            return new Snapshot(new BloomFilter(expectedSize, FALSE_POSITIVE_RATE), ConcurrentHashMap.newKeySet(), new ConcurrentHashMap<>());
+        }
+
+        void add(RevokedToken revocation) {
+            if (revocation.getJti() != null) {
+                //Сначала точное множество, затем фильтр: читатель, увидевший бит, всегда найдет jti в множестве
+                jtis.add(revocation.getJti());
+                jtiFilter.put(revocation.getJti());
+            } else {
+                Instant revokedAt = revocation.getRevokedAt().atZone(ZoneId.systemDefault()).toInstant();
+                personRevokedAt.merge(revocation.getPersonId(), revokedAt, (a, b) -> a.isAfter(b) ? a : b);
+            }
+        }
+    }
+}
@@ -1,40 +1,81 @@
 package ru.library.services.admin_service;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import ru.library.dto.BookCoverView;
 import ru.library.dto.BookDTO;
+import ru.library.dto.BookView;
+import ru.library.dto.CoverStatusDTO;
+import ru.library.dto.CursorPageDTO;
+import ru.library.dto.OwnedBookView;
 import ru.library.dto.PersonDTO;
+import ru.library.dto.PersonView;
+import ru.library.exceptions.book_exp.BookNotFoundException;
+import ru.library.exceptions.book_exp.BookStatusConflictException;
+import ru.library.exceptions.person_exp.InvalidPersonIdsException;
 import ru.library.exceptions.person_exp.PersonNotFoundException;
+import ru.library.mappers.BookMapper;
+import ru.library.mappers.PersonMapper;
 import ru.library.models.Book;
-import ru.library.models.BookStatus;
+import ru.library.models.CoverSize;
 import ru.library.models.Person;
 import ru.library.models.Role;
 import ru.library.repositories.BookRepository;
 import ru.library.repositories.PeopleRepository;
+import ru.library.security.PasswordHashingExecutor;
+import ru.library.security.TokenRevocationService;
 import ru.library.services.book_service.BookService;
-
+import ru.library.services.cover_service.CoverIndex;
+import ru.library.services.cover_service.CoverIngestService;
+import ru.library.services.cover_service.CoverService;
+import ru.library.services.people_service.NameAvailabilityService;
+import ru.library.util.CursorUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 public class AdminService implements AdminServiceInf{
+    //Страница админки - 50 строк, запас вдвое; больше - уже не страница, а выгрузка
+    private static final int MAX_BULK_PERSON_IDS = 100;
+
     private final BookService bookService;
     private final PeopleRepository peopleRepository;
     private final BookRepository bookRepository;
-    private final ModelMapper modelMapper;
-    private final PasswordEncoder passwordEncoder;
+    private final BookMapper bookMapper;
+    private final PersonMapper personMapper;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final CursorUtil cursorUtil;
+    private final CoverIndex coverIndex;
+    private final CoverService coverService;
+    private final CoverIngestService coverIngestService;
+    private final TokenRevocationService tokenRevocationService;
+    private final NameAvailabilityService nameAvailabilityService;
 
     @Autowired
-    public AdminService(BookService bookService, PeopleRepository peopleRepository, BookRepository bookRepository, ModelMapper modelMapper, PasswordEncoder passwordEncoder) {
+    public AdminService(BookService bookService, PeopleRepository peopleRepository, BookRepository bookRepository, BookMapper bookMapper, PersonMapper personMapper, PasswordHashingExecutor passwordHashingExecutor, CursorUtil cursorUtil, CoverIndex coverIndex, CoverService coverService, CoverIngestService coverIngestService, TokenRevocationService tokenRevocationService, NameAvailabilityService nameAvailabilityService) {
         this.bookService = bookService;
         this.peopleRepository = peopleRepository;
         this.bookRepository = bookRepository;
-        this.modelMapper = modelMapper;
-        this.passwordEncoder = passwordEncoder;
+        this.bookMapper = bookMapper;
+        this.personMapper = personMapper;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.cursorUtil = cursorUtil;
+        this.coverIndex = coverIndex;
+        this.coverService = coverService;
+        this.coverIngestService = coverIngestService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.nameAvailabilityService = nameAvailabilityService;
     }
 
     @Override
@@ -42,6 +83,13 @@ public class AdminService implements AdminServiceInf{
         return  peopleRepository.findAll();
     }
 
+    @Override
+    public CursorPageDTO<PersonView> getPeoplePage(String cursor, Integer size) {
+        int pageSize = cursorUtil.resolvePageSize(size);
+        List<PersonView> people = peopleRepository.findViewsAfter(cursorUtil.decode(cursor), cursorUtil.fetchLimit(pageSize));
+        return cursorUtil.toPage(people, pageSize, PersonView::id);
+    }
+
     @Override
     public Person findPersonById(Long id) {
         Optional<Person> personById = peopleRepository.findById(id);
@@ -49,6 +97,12 @@ public class AdminService implements AdminServiceInf{
         return personById.orElseThrow(() -> new PersonNotFoundException("Person with this id is not found"));
     }
 
+    @Override
+    public PersonView findPersonViewById(Long id) {
+        return peopleRepository.findViewById(id)
+                .orElseThrow(() -> new PersonNotFoundException("Person with this id is not found"));
+    }
+
     @Override
     public void save(Person person) {
         if (person.getRole() == null) {
@@ -56,12 +110,19 @@ public class AdminService implements AdminServiceInf{
         }
 
         peopleRepository.save(person);
+        nameAvailabilityService.markTaken(person.getName());
     }
 
     @Override
     public void update(Person person, Long id) {
+        //Роль и имя зашиты в claims выданных токенов - при их смене старые токены отзываются
+        peopleRepository.findById(id)
+                .filter(stored -> stored.getRole() != person.getRole() || !Objects.equals(stored.getName(), person.getName()))
+                .ifPresent(stored -> tokenRevocationService.revokePerson(id));
+
         person.setId(id);
         peopleRepository.save(person);
+        nameAvailabilityService.markTaken(person.getName());
     }
 
     @Override
@@ -69,6 +130,7 @@ public class AdminService implements AdminServiceInf{
         Person person = peopleRepository.findById(id).orElseThrow();
         person.setRemovedAt(LocalDateTime.now());
         peopleRepository.save(person);
+        tokenRevocationService.revokePerson(id);
     }
 
     @Override
@@ -76,24 +138,66 @@ public class AdminService implements AdminServiceInf{
         return peopleRepository.findByRemovedAtNotNull();
     }
 
+    @Override
+    public CursorPageDTO<PersonView> getDeletedPeoplePage(String cursor, Integer size) {
+        int pageSize = cursorUtil.resolvePageSize(size);
+        List<PersonView> people = peopleRepository.findDeletedViewsAfter(cursorUtil.decode(cursor), cursorUtil.fetchLimit(pageSize));
+        return cursorUtil.toPage(people, pageSize, PersonView::id);
+    }
+
     @Override
     public List<BookDTO> getBooksByPersonId(Long id) {
-        Optional<Person> personById = peopleRepository.findById(id);
-        if (personById.isPresent()) {
-            return personById.get().getBooks().stream()
-                    .map(bookService::convertBookToBookDTO)
-                    .toList();
-        } else {
-            throw new RuntimeException("Person not found");
+        List<OwnedBookView> books = bookRepository.findOwnedViewsByPersonId(id);
+
+        //Пустой список - либо у человека нет книг, либо его нет; второй запрос только в этом случае
+        if (books.isEmpty() && !peopleRepository.existsById(id)) {
+            throw new PersonNotFoundException("Person with this id is not found");
+        }
+
+        return books.stream()
+                .map(bookService::convertOwnedBookViewToBookDTO)
+                .toList();
+    }
+
+    @Override
+    public Map<Long, List<BookDTO>> getBooksByPersonIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_BULK_PERSON_IDS) {
+            throw new InvalidPersonIdsException("Between 1 and " + MAX_BULK_PERSON_IDS + " person ids are required");
         }
+
+        //Пустой элемент в ?ids=1,,2 приходит как null
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new InvalidPersonIdsException("Person ids must not be empty");
+        }
+
+        //Порядок и состав ключей - как в запросе, у людей без книг пустой список
+        Map<Long, List<BookDTO>> booksByPerson = new LinkedHashMap<>();
+        ids.forEach(id -> booksByPerson.put(id, new ArrayList<>()));
+
+        for (OwnedBookView book : bookRepository.findOwnedViewsByPersonIds(booksByPerson.keySet())) {
+            booksByPerson.get(book.ownerId()).add(bookService.convertOwnedBookViewToBookDTO(book));
+        }
+
+        return booksByPerson;
     }
 
     public PersonDTO convertPersonToPersonDTO(Person person) {
-        return modelMapper.map(person, PersonDTO.class);
+        return personMapper.toDto(person);
+    }
+
+    public PersonDTO convertPersonViewToPersonDTO(PersonView personView) {
+        return new PersonDTO(
+                personView.name(),
+                personView.age(),
+                personView.email(),
+                personView.phoneNumber(),
+                null,
+                personView.role()
+        );
     }
 
     public Person convertPersonDTOToPerson(PersonDTO personDTO) {
-        Person person = modelMapper.map(personDTO, Person.class);
+        Person person = personMapper.toEntity(personDTO);
 
         enrichPerson(person);
 
@@ -106,7 +210,8 @@ public class AdminService implements AdminServiceInf{
         person.setRemovedAt(null);
         person.setCreatedPerson("ADMIN");
         person.setRemovedPerson(null);
-        person.setPassword(passwordEncoder.encode(person.getPassword()));
+        //BCrypt считается в отдельном ограниченном пуле, при переполнении очереди - PasswordHashingRejectedException (503)
+        person.setPassword(passwordHashingExecutor.encode(person.getPassword()));
     }
 
     @Override
@@ -114,28 +219,71 @@ public class AdminService implements AdminServiceInf{
         return bookRepository.findAll();
     }
 
+    @Override
+    public CursorPageDTO<BookView> getBooksPage(String cursor, Integer size) {
+        int pageSize = cursorUtil.resolvePageSize(size);
+        List<BookView> books = bookRepository.findViewsAfter(cursorUtil.decode(cursor), cursorUtil.fetchLimit(pageSize));
+        return cursorUtil.toPage(books, pageSize, BookView::bookId);
+    }
+
     @Override
     public Book findBookById(Long bookId) {
         Optional<Book> bookById = bookRepository.findById(bookId);
         return bookById.orElse(null);
     }
 
+    @Override
+    public BookView findBookViewById(Long bookId) {
+        return bookRepository.findViewById(bookId)
+                .orElseThrow(() -> new BookNotFoundException("Book with id " + bookId + " not found"));
+    }
+
     @Override
     public void save(Book book) {
         bookRepository.save(book);
     }
 
+    @Override
+    public void enqueueCoverImage(Long bookId, String coverImageUrl) {
+        coverIngestService.enqueue(bookId, coverImageUrl);
+    }
+
+    @Override
+    public Optional<CoverStatusDTO> getCoverStatus(Long bookId) {
+        return coverIngestService.getStatus(bookId);
+    }
+
+    //Меняются только описательные поля: статус и владелец остаются за переходами статуса. Если книгу между чтением
+    //и записью изменил другой запрос, @Version не даст затереть его изменения
     @Override
     public void update(Book book, Long bookId) {
-        book.setBookId(bookId);
-        bookRepository.save(book);
+        Book bookById = bookRepository.findById(bookId)
+                .orElseThrow(() -> new BookNotFoundException("Book with id " + bookId + " not found"));
+
+        bookById.setTitle(book.getTitle());
+        bookById.setAuthor(book.getAuthor());
+        bookById.setYearOfProduction(book.getYearOfProduction());
+        bookById.setAnnotation(book.getAnnotation());
+        bookById.setUpdatedAt(book.getUpdatedAt());
+        bookById.setUpdatedPerson(book.getUpdatedPerson());
+
+        saveWithVersionCheck(bookById);
     }
 
     @Override
     public void softDeleteBook(Long bookId) {
         Book book = bookRepository.findById(bookId).orElseThrow();
         book.setRemovedAt(LocalDateTime.now());
-        bookRepository.save(book);
+        saveWithVersionCheck(book);
+        coverIndex.remove(bookId);
+    }
+
+    private void saveWithVersionCheck(Book book) {
+        try {
+            bookRepository.saveAndFlush(book);
+        } catch (OptimisticLockingFailureException e) {
+            throw new BookStatusConflictException("Book " + book.getBookId() + " was changed by another request, retry");
+        }
     }
 
     @Override
@@ -143,12 +291,34 @@ public class AdminService implements AdminServiceInf{
         return bookRepository.findByRemovedAtNotNull();
     }
 
+    @Override
+    public CursorPageDTO<BookView> getDeletedBooksPage(String cursor, Integer size) {
+        int pageSize = cursorUtil.resolvePageSize(size);
+        List<BookView> books = bookRepository.findDeletedViewsAfter(cursorUtil.decode(cursor), cursorUtil.fetchLimit(pageSize));
+        return cursorUtil.toPage(books, pageSize, BookView::bookId);
+    }
+
+    @Override
+    public void exportBooks(OutputStream outputStream) throws IOException {
+        bookService.exportBooks(outputStream);
+    }
+
     public BookDTO convertBookToBookDTO(Book book){
-        return modelMapper.map(book, BookDTO.class);
+        return bookMapper.toDto(book);
+    }
+
+    public BookDTO convertBookViewToBookDTO(BookView bookView) {
+        return new BookDTO(
+                bookView.title(),
+                bookView.yearOfProduction(),
+                bookView.author(),
+                bookView.annotation(),
+                null
+        );
     }
 
     public Book convertBookDTOToBook(BookDTO bookDTO){
-        Book book = modelMapper.map(bookDTO, Book.class);
+        Book book = bookMapper.toEntity(bookDTO);
         enrichBook(book);
         return book;
     }
@@ -163,87 +333,56 @@ public class AdminService implements AdminServiceInf{
         book.setBookOwner(null);
     }
 
+    //person_id ссылается на person: несуществующий читатель дает нарушение внешнего ключа, отдельный поиск не нужен
     @Override
     public void assignBookToPerson(Long bookId, Long personId) {
-        Book bookById = bookRepository.findById(bookId).orElseThrow(() -> new RuntimeException("Book not found"));
-        Person personById  = peopleRepository.findById(personId).orElseThrow(() -> new RuntimeException("Person not found"));
+        int updatedRows;
 
-        if (bookById.getStatus() != BookStatus.FREE) {
-            throw new IllegalStateException("Book is already assigned to a person");
+        try {
+            updatedRows = bookRepository.assignIfFree(bookId, personId);
+        } catch (DataIntegrityViolationException e) {
+            throw new PersonNotFoundException("Person with this id is not found");
         }
 
-        bookById.setStatus(BookStatus.ASSIGNED);
-        bookById.setBookOwner(personById);
-        personById.getBooks().add(bookById);
-
-        bookRepository.save(bookById);
-        peopleRepository.save(personById);
+        bookService.requireTransition(updatedRows, bookId, "Book is already assigned to a person");
     }
 
     @Override
     public void freeBook(Long bookId) {
-        Book bookById = bookRepository.findById(bookId).orElseThrow(() -> new RuntimeException("Book not found"));
-
-        if (bookById.getStatus() != BookStatus.ASSIGNED) {
-            throw new IllegalStateException("Book is not assigned to anyone");
-        }
-
-        bookById.setStatus(BookStatus.FREE);
-        bookById.setBookOwner(null);
+        bookService.freeBook(bookId);
+    }
 
-        bookRepository.save(bookById);
+    @Override
+    public Resource getCoverImage(BookCoverView cover, CoverSize size) {
+        return coverService.getCoverImage(cover, size);
     }
 
     @Override
-    public byte[] getCoverImage(Long bookId) {
-        Book book = bookRepository.findById(bookId).orElse(null);
-        if (book != null) {
-            return book.getCoverImage();
-        }
-        return new byte[0];
+    public BookCoverView findCoverViewById(Long bookId, CoverSize size) {
+        return coverService.findCoverView(bookId, size);
     }
 
     @Override
-    public List<String> getAllCoverImagesUrl() {
-        List<Book> books = bookRepository.findAll();
-        List<String> imageUrls = new ArrayList<>();
-        for (Book book : books) {
-            byte[] imageData = book.getCoverImage();
-            if (imageData != null && imageData.length > 0) {
-                String imageUrl = "/api/books/" + book.getBookId() + "/coverImage";
-                imageUrls.add(imageUrl);
-            }
-        }
-        return imageUrls;
+    public CursorPageDTO<String> getCoverImagesUrlPage(String cursor, Integer size) {
+        int pageSize = cursorUtil.resolvePageSize(size);
+        List<Long> bookIds = coverIndex.findBookIdsAfter(cursorUtil.decode(cursor), pageSize + 1);
+        return cursorUtil.toPage(bookIds, pageSize, Long::longValue)
+                .map(bookId -> "/api/books/" + bookId + "/coverImage");
     }
 
     @Override
     public void viewBookCover(Long bookId, Long personId) {
-        Book book = bookRepository.findById(bookId).orElseThrow(() -> new RuntimeException("Book not found"));
-        if (book.getStatus() != BookStatus.FREE) {
-            throw new IllegalStateException("Book is not available for viewing");
-        }
-        book.setStatus(BookStatus.VIEWING_COVER);
-        bookRepository.save(book);
+        bookService.viewBookCover(bookId, personId);
     }
 
     @Override
     public void viewBookContent(Long bookId, Long personId) {
-        Book book = bookRepository.findById(bookId).orElseThrow(() -> new RuntimeException("Book not found"));
-        if (book.getStatus() != BookStatus.FREE) {
-            throw new IllegalStateException("Book is not available for viewing");
-        }
-        book.setStatus(BookStatus.VIEWING_CONTENT);
-        bookRepository.save(book);
+        bookService.viewBookContent(bookId, personId);
     }
 
     @Override
     public void releaseBookAfterViewing(Long bookId) {
-        Book book = bookRepository.findById(bookId).orElseThrow(() -> new RuntimeException("Book not found"));
-        if (book.getStatus() == BookStatus.VIEWING_COVER || book.getStatus() == BookStatus.VIEWING_CONTENT) {
-            book.setStatus(BookStatus.FREE);
-            bookRepository.save(book);
-        }
+        bookService.releaseBookAfterViewing(bookId);
     }
 
 }
@@ -1,13 +1,22 @@
 package ru.library.services.admin_service;
 
-import jakarta.transaction.Transactional;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.transaction.annotation.Transactional;
+import ru.library.config.CacheConfig;
+import ru.library.dto.BookDTO;
+import ru.library.dto.BookView;
+import ru.library.dto.CoverStatusDTO;
+import ru.library.dto.CursorPageDTO;
 import ru.library.dto.PersonDTO;
+import ru.library.dto.PersonView;
 import ru.library.models.Book;
 import ru.library.models.Person;
 import ru.library.services.general_service.GeneralBookServiceInf;
 import ru.library.services.general_service.GeneralPeopleServiceInf;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public interface AdminServiceInf extends GeneralPeopleServiceInf, GeneralBookServiceInf {
 
@@ -15,14 +24,22 @@ public interface AdminServiceInf extends GeneralPeopleServiceInf, GeneralBookSer
     void save(Person person);
 
     @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.PEOPLE_CACHE, CacheConfig.PRINCIPALS_CACHE}, key = "#id")
     void update(Person person, Long id);
 
     @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.PEOPLE_CACHE, CacheConfig.PRINCIPALS_CACHE}, key = "#id")
     void softDeletePerson(Long id);
 
     @Transactional
     List<Person> getDeletedPeople();
 
+    @Transactional(readOnly = true)
+    CursorPageDTO<PersonView> getDeletedPeoplePage(String cursor, Integer size);
+
+    @Transactional(readOnly = true)
+    Map<Long, List<BookDTO>> getBooksByPersonIds(List<Long> ids);
+
     Person convertPersonDTOToPerson(PersonDTO personDTO);
 
     void enrichPerson(Person person);
@@ -37,15 +54,27 @@ public interface AdminServiceInf extends GeneralPeopleServiceInf, GeneralBookSer
     void save(Book book);
 
     @Transactional
+    void enqueueCoverImage(Long bookId, String coverImageUrl);
+
+    @Transactional(readOnly = true)
+    Optional<CoverStatusDTO> getCoverStatus(Long bookId);
+
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#bookId")
     void update(Book book, Long bookId);
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#bookId")
     void softDeleteBook(Long bookId);
 
     @Transactional
     List<Book> getDeletedBooks();
 
+    @Transactional(readOnly = true)
+    CursorPageDTO<BookView> getDeletedBooksPage(String cursor, Integer size);
+
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#bookId")
     void assignBookToPerson(Long bookId, Long personId);
 
 }
@@ -1,27 +1,63 @@
 package ru.library.services.book_service;
 
-import org.modelmapper.ModelMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import ru.library.dto.BookCoverView;
 import ru.library.dto.BookDTO;
+import ru.library.dto.BookView;
+import ru.library.dto.CursorPageDTO;
+import ru.library.dto.OwnedBookView;
+import ru.library.exceptions.book_exp.BookNotFoundException;
+import ru.library.exceptions.book_exp.BookStatusConflictException;
+import ru.library.mappers.BookMapper;
 import ru.library.models.Book;
-import ru.library.models.BookStatus;
+import ru.library.models.CoverSize;
 import ru.library.repositories.BookRepository;
+import ru.library.services.cover_service.CoverIndex;
+import ru.library.services.cover_service.CoverService;
 import ru.library.services.general_service.GeneralBookServiceInf;
+import ru.library.util.CursorUtil;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class BookService implements GeneralBookServiceInf {
     private final BookRepository bookRepository;
-    private final ModelMapper modelMapper;
+    private final BookMapper bookMapper;
+    private final CursorUtil cursorUtil;
+    private final CoverIndex coverIndex;
+    private final CoverService coverService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${library.export.flush-every:500}")
+    private int exportFlushEvery;
 
     @Autowired
-    public BookService(BookRepository bookRepository, ModelMapper modelMapper) {
+    public BookService(BookRepository bookRepository, BookMapper bookMapper, CursorUtil cursorUtil, CoverIndex coverIndex, CoverService coverService, ObjectMapper objectMapper) {
         this.bookRepository = bookRepository;
-        this.modelMapper = modelMapper;
+        this.bookMapper = bookMapper;
+        this.cursorUtil = cursorUtil;
+        this.coverIndex = coverIndex;
+        this.coverService = coverService;
+        this.objectMapper = objectMapper;
+    }
+
+    //Проверяем при старте: ноль дал бы ArithmeticException посреди выгрузки, когда 200 уже отправлен
+    @PostConstruct
+    public void validateExportFlushEvery() {
+        if (exportFlushEvery < 1) {
+            throw new IllegalStateException("library.export.flush-every must be at least 1, got " + exportFlushEvery);
+        }
     }
 
     @Override
@@ -29,6 +65,13 @@ public class BookService implements GeneralBookServiceInf {
         return bookRepository.findAll();
     }
 
+    @Override
+    public CursorPageDTO<BookView> getBooksPage(String cursor, Integer size) {
+        int pageSize = cursorUtil.resolvePageSize(size);
+        List<BookView> books = bookRepository.findViewsAfter(cursorUtil.decode(cursor), cursorUtil.fetchLimit(pageSize));
+        return cursorUtil.toPage(books, pageSize, BookView::bookId);
+    }
+
     @Override
     public Book findBookById(Long bookId) {
         Optional<Book> bookById = bookRepository.findById(bookId);
@@ -36,72 +79,108 @@ public class BookService implements GeneralBookServiceInf {
     }
 
     @Override
-    public byte[] getCoverImage(Long bookId) {
-        Book book = bookRepository.findById(bookId).orElse(null);
-        if (book != null) {
-            return book.getCoverImage();
-        }
-        return new byte[0];
+    public BookView findBookViewById(Long bookId) {
+        return bookRepository.findViewById(bookId)
+                .orElseThrow(() -> new BookNotFoundException("Book with id " + bookId + " not found"));
     }
 
     @Override
-    public List<String> getAllCoverImagesUrl() {
-        List<Book> books = bookRepository.findAll();
-        List<String> imageUrls = new ArrayList<>();
-        for (Book book : books) {
-            byte[] imageData = book.getCoverImage();
-            if (imageData != null && imageData.length > 0) {
-                String imageUrl = "/api/books/" + book.getBookId() + "/coverImage";
-                imageUrls.add(imageUrl);
-            }
-        }
-        return imageUrls;
+    public Resource getCoverImage(BookCoverView cover, CoverSize size) {
+        return coverService.getCoverImage(cover, size);
     }
 
-    public BookDTO convertBookToBookDTO(Book book){
-        return modelMapper.map(book, BookDTO.class);
+    @Override
+    public BookCoverView findCoverViewById(Long bookId, CoverSize size) {
+        return coverService.findCoverView(bookId, size);
     }
 
     @Override
-    public void freeBook(Long bookId) {
-        Book bookById = bookRepository.findById(bookId).orElseThrow(() -> new RuntimeException("Book not found"));
+    public CursorPageDTO<String> getCoverImagesUrlPage(String cursor, Integer size) {
+        int pageSize = cursorUtil.resolvePageSize(size);
+        List<Long> bookIds = coverIndex.findBookIdsAfter(cursorUtil.decode(cursor), pageSize + 1);
+        return cursorUtil.toPage(bookIds, pageSize, Long::longValue)
+                .map(bookId -> "/api/books/" + bookId + "/coverImage");
+    }
 
-        if (bookById.getStatus() != BookStatus.ASSIGNED) {
-            throw new IllegalStateException("Book is not assigned to anyone");
+    @Override
+    public void exportBooks(OutputStream outputStream) throws IOException {
+        try (Stream<BookView> books = bookRepository.streamAllViews();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            long written = 0;
+            Iterator<BookView> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                generator.writeObject(iterator.next());
+                generator.writeRaw('\n');
+
+                //Первую строку отдаем сразу, дальше сбрасываем буфер пачками
+                if (++written == 1 || written % exportFlushEvery == 0) {
+                    generator.flush();
+                }
+            }
         }
+    }
 
-        bookById.setStatus(BookStatus.FREE);
-        bookById.setBookOwner(null);
+    public BookDTO convertBookToBookDTO(Book book){
+        return bookMapper.toDto(book);
+    }
+
+    public BookDTO convertOwnedBookViewToBookDTO(OwnedBookView bookView) {
+        return new BookDTO(
+                bookView.title(),
+                bookView.yearOfProduction(),
+                bookView.author(),
+                bookView.annotation(),
+                null
+        );
+    }
 
-        bookRepository.save(bookById);
+    public BookDTO convertBookViewToBookDTO(BookView bookView) {
+        return new BookDTO(
+                bookView.title(),
+                bookView.yearOfProduction(),
+                bookView.author(),
+                bookView.annotation(),
+                null
+        );
+    }
+
+    @Override
+    public void freeBook(Long bookId) {
+        requireTransition(bookRepository.freeIfAssigned(bookId), bookId, "Book is not assigned to anyone");
     }
 
     @Override
     public void viewBookCover(Long bookId, Long personId) {
-        Book book = bookRepository.findById(bookId).orElseThrow(() -> new RuntimeException("Book not found"));
-        if (book.getStatus() != BookStatus.FREE) {
-            throw new IllegalStateException("Book is not available for viewing");
-        }
-        book.setStatus(BookStatus.VIEWING_COVER);
-        bookRepository.save(book);
+        requireTransition(bookRepository.viewCoverIfAvailable(bookId, personId), bookId, "Book is not available for viewing");
     }
 
     @Override
     public void viewBookContent(Long bookId, Long personId) {
-        Book book = bookRepository.findById(bookId).orElseThrow(() -> new RuntimeException("Book not found"));
-        if (book.getStatus() != BookStatus.FREE) {
-            throw new IllegalStateException("Book is not available for viewing");
-        }
-        book.setStatus(BookStatus.VIEWING_CONTENT);
-        bookRepository.save(book);
+        requireTransition(bookRepository.viewContentIfFree(bookId), bookId, "Book is not available for viewing");
     }
 
+    //Повторное освобождение не ошибка: книга, которую уже никто не смотрит, остается как есть
     @Override
     public void releaseBookAfterViewing(Long bookId) {
-        Book book = bookRepository.findById(bookId).orElseThrow(() -> new RuntimeException("Book not found"));
-        if (book.getStatus() == BookStatus.VIEWING_COVER || book.getStatus() == BookStatus.VIEWING_CONTENT) {
-            book.setStatus(BookStatus.FREE);
-            bookRepository.save(book);
+        if (bookRepository.releaseIfViewing(bookId) == 0 && !bookRepository.existsById(bookId)) {
+            throw new BookNotFoundException("Book with id " + bookId + " not found");
+        }
+    }
+
+    //Условный UPDATE не изменил строку: либо книги нет, либо статус уже сменил другой запрос.
+    //Второй запрос к БД нужен только проигравшей стороне
+    public void requireTransition(int updatedRows, Long bookId, String conflictMessage) {
+        if (updatedRows > 0) {
+            return;
+        }
+
+        if (!bookRepository.existsById(bookId)) {
+            throw new BookNotFoundException("Book with id " + bookId + " not found");
         }
+
+        throw new BookStatusConflictException(conflictMessage);
     }
 }
@@ -0,0 +1,314 @@
+package ru.library.services.cover_service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import ru.library.dto.CoverCacheStatsDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+//Кеш горячих обложек вне heap: байты лежат в заранее выделенных direct ByteBuffer, нарезанных на куски по chunk-bytes.
+//Вытеснение и учет бюджета - Caffeine (W-TinyLFU) с весом в байтах, ключ - SHA-256 содержимого.
+//Кусок возвращается в слэб только когда запись вытеснена и ее дочитали все открытые ответы (счетчик ссылок)
+@Component
+public class CoverCache {
+    private final Slab slab;
+    private final Cache<String, Entry> cache;
+    private final long maxEntryBytes;
+    private final AtomicLong rejected = new AtomicLong();
+
+    @Autowired
+    public CoverCache(@Value("${library.covers.cache.max-bytes:67108864}") long maxBytes,
+                      @Value("${library.covers.cache.chunk-bytes:16384}") int chunkBytes) {
+        this.slab = maxBytes > 0 ? new Slab(maxBytes, chunkBytes) : null;
+        this.maxEntryBytes = maxBytes / 8;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(slab != null ? slab.capacityBytes() : 0)
+                .weigher((String key, Entry entry) -> entry.chunks.length * chunkBytes)
+                //Слушатель удаления выполняется сразу в вызывающем потоке, чтобы куски освобождались до следующей аллокации
+                .executor(Runnable::run)
+                .removalListener((String key, Entry entry, RemovalCause cause) -> {
+                    if (entry != null) {
+                        entry.release();
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    //null - в кеше нет; fallback нужен на случай, если запись вытеснят между поиском и чтением
+    public Resource get(String contentHash, Supplier<Resource> fallback) {
+        if (slab == null || contentHash == null) {
+            return null;
+        }
+
+        Entry entry = cache.getIfPresent(contentHash);
+        return entry != null ? new CachedCoverResource(entry, fallback) : null;
+    }
+
+    public void put(String contentHash, byte[] image) {
+        if (slab == null || contentHash == null || image.length == 0 || image.length > maxEntryBytes) {
+            return;
+        }
+
+        int[] chunks = slab.allocate(image.length);
+
+        if (chunks == null) {
+            //Место могут держать уже вытесненные, но еще читаемые записи или отложенное вытеснение
+            cache.cleanUp();
+            chunks = slab.allocate(image.length);
+        }
+
+        if (chunks == null) {
+            rejected.incrementAndGet();
+            return;
+        }
+
+        slab.write(chunks, image);
+        cache.put(contentHash, new Entry(chunks, image.length));
+    }
+
+    public void invalidate(String contentHash) {
+        if (contentHash != null) {
+            cache.invalidate(contentHash);
+        }
+    }
+
+    public CoverCacheStatsDTO getStats() {
+        CacheStats stats = cache.stats();
+        long capacity = slab != null ? slab.capacityBytes() : 0;
+        long used = slab != null ? slab.usedBytes() : 0;
+
+        return new CoverCacheStatsDTO(
+                cache.estimatedSize(),
+                used,
+                capacity,
+                capacity > 0 ? (double) used / capacity : 0,
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                rejected.get()
+        );
+    }
+
+    //Набор direct буферов, поделенных на куски одинакового размера, и стек свободных кусков
+    private static final class Slab {
+        private static final int MAX_BUFFER_BYTES = 64 * 1024 * 1024;
+
+        private final int chunkBytes;
+        private final int chunksPerBuffer;
+        private final ByteBuffer[] buffers;
+        private final int[] freeChunks;
+        private int freeCount;
+
+        Slab(long maxBytes, int chunkBytes) {
+            this.chunkBytes = chunkBytes;
+            this.chunksPerBuffer = Math.max(1, MAX_BUFFER_BYTES / chunkBytes);
+
+            int totalChunks = (int) Math.max(1, maxBytes / chunkBytes);
+            int bufferCount = (totalChunks + chunksPerBuffer - 1) / chunksPerBuffer;
+
+            this.buffers = new ByteBuffer[bufferCount];
+            for (int i = 0; i < bufferCount; i++) {
+                int chunks = Math.min(chunksPerBuffer, totalChunks - i * chunksPerBuffer);
+                buffers[i] = ByteBuffer.allocateDirect(chunks * chunkBytes);
+            }
+
+            this.freeChunks = new int[totalChunks];
+            for (int i = 0; i < totalChunks; i++) {
+                freeChunks[i] = totalChunks - 1 - i;
+            }
+            this.freeCount = totalChunks;
+        }
+
+        synchronized int[] allocate(int length) {
+            int needed = (length + chunkBytes - 1) / chunkBytes;
+
+            if (needed > freeCount) {
+                return null;
+            }
+
+            int[] chunks = new int[needed];
+            for (int i = 0; i < needed; i++) {
+                chunks[i] = freeChunks[--freeCount];
+            }
+
+            return chunks;
+        }
+
+        synchronized void free(int[] chunks) {
+            for (int chunk : chunks) {
+                freeChunks[freeCount++] = chunk;
+            }
+        }
+
+        void write(int[] chunks, byte[] data) {
+            for (int i = 0; i < chunks.length; i++) {
+                int offset = i * chunkBytes;
+                int length = Math.min(chunkBytes, data.length - offset);
+                buffer(chunks[i]).put(position(chunks[i]), data, offset, length);
+            }
+        }
+
+        //Абсолютное чтение не трогает position буфера, поэтому параллельные читатели не мешают друг другу
+        void read(int chunk, int chunkOffset, byte[] target, int targetOffset, int length) {
+            buffer(chunk).get(position(chunk) + chunkOffset, target, targetOffset, length);
+        }
+
+        long capacityBytes() {
+            return (long) freeChunks.length * chunkBytes;
+        }
+
+        synchronized long usedBytes() {
+            return (long) (freeChunks.length - freeCount) * chunkBytes;
+        }
+
+        private ByteBuffer buffer(int chunk) {
+            return buffers[chunk / chunksPerBuffer];
+        }
+
+        private int position(int chunk) {
+            return (chunk % chunksPerBuffer) * chunkBytes;
+        }
+    }
+
+    //Одна ссылка принадлежит кешу, по одной - каждому открытому потоку чтения
+    private final class Entry {
+        private final int[] chunks;
+        private final int length;
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        Entry(int[] chunks, int length) {
+            this.chunks = chunks;
+            this.length = length;
+        }
+
+        boolean retain() {
+            while (true) {
+                int current = references.get();
+                if (current == 0) {
+                    return false;
+                }
+                if (references.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            if (references.decrementAndGet() == 0) {
+                slab.free(chunks);
+            }
+        }
+    }
+
+    private final class CachedCoverResource extends AbstractResource {
+        private final Entry entry;
+        private final Supplier<Resource> fallback;
+
+        CachedCoverResource(Entry entry, Supplier<Resource> fallback) {
+            this.entry = entry;
+            this.fallback = fallback;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            if (entry.retain()) {
+                return new EntryInputStream(entry);
+            }
+
+            Resource resource = fallback.get();
+            if (resource == null) {
+                throw new IOException("Cover is no longer available");
+            }
+            return resource.getInputStream();
+        }
+
+        @Override
+        public long contentLength() {
+            return entry.length;
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public String getDescription() {
+            return "Off-heap cached cover [" + entry.length + " bytes]";
+        }
+    }
+
+    //Читает запись прямо из direct буферов в буфер вызывающего кода, без промежуточного byte[] на всю обложку
+    private final class EntryInputStream extends InputStream {
+        private final Entry entry;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private int position;
+
+        EntryInputStream(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public int read() {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (position >= entry.length) {
+                return -1;
+            }
+
+            int total = Math.min(length, entry.length - position);
+            int copied = 0;
+
+            while (copied < total) {
+                int chunkIndex = position / slab.chunkBytes;
+                int chunkOffset = position % slab.chunkBytes;
+                int count = Math.min(total - copied, slab.chunkBytes - chunkOffset);
+
+                slab.read(entry.chunks[chunkIndex], chunkOffset, target, offset + copied, count);
+
+                copied += count;
+                position += count;
+            }
+
+            return copied;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, entry.length - position));
+            position += (int) skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return entry.length - position;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                entry.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package ru.library.services.cover_service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.library.exceptions.img_exp.CoverFetchException;
+import ru.library.util.ETagUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+//Загрузка обложек по url через один общий HttpClient (пул соединений, keep-alive).
+//Ответ читается потоком с жестким лимитом байт, общий таймаут покрывает и заголовки, и тело.
+//Ответы с ETag/Last-Modified кешируются на диске по SHA-256 от url и при повторной загрузке перепроверяются условным запросом.
+//Дисковый кеш ограничен по байтам: при превышении удаляются давно не использованные записи (LRU по времени изменения файла)
+@Component
+public class CoverFetcher {
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "last-modified";
+
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+    private final long maxBytes;
+    private final Path cacheDirectory;
+    private final long cacheMaxBytes;
+
+    @Autowired
+    public CoverFetcher(@Value("${library.covers.fetch.connect-timeout:5s}") Duration connectTimeout,
+                        @Value("${library.covers.fetch.read-timeout:20s}") Duration readTimeout,
+                        @Value("${library.covers.fetch.max-bytes:5242880}") long maxBytes,
+                        @Value("${library.covers.fetch.cache-directory:${java.io.tmpdir}/library-cover-cache}") String cacheDirectory,
+                        @Value("${library.covers.fetch.cache-max-bytes:104857600}") long cacheMaxBytes) throws IOException {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.readTimeout = readTimeout;
+        this.maxBytes = maxBytes;
+        this.cacheDirectory = Path.of(cacheDirectory).toAbsolutePath().normalize();
+        this.cacheMaxBytes = cacheMaxBytes;
+        Files.createDirectories(this.cacheDirectory);
+    }
+
+    public byte[] fetch(String url) throws IOException {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            throw new CoverFetchException("Invalid cover URL: " + url, false);
+        }
+
+        String key = ETagUtil.contentHash(url.getBytes(StandardCharsets.UTF_8));
+        Path bodyFile = cacheDirectory.resolve(key + ".bin");
+        Path metaFile = cacheDirectory.resolve(key + ".properties");
+        Properties cached = readMeta(metaFile, bodyFile);
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(readTimeout)
+                .header("Accept", "image/*")
+                .GET();
+
+        if (cached != null) {
+            if (cached.getProperty(ETAG) != null) {
+                request.header("If-None-Match", cached.getProperty(ETAG));
+            }
+            if (cached.getProperty(LAST_MODIFIED) != null) {
+                request.header("If-Modified-Since", cached.getProperty(LAST_MODIFIED));
+            }
+        }
+
+        HttpResponse<byte[]> response = send(request.build());
+        int status = response.statusCode();
+
+        if (status == 304 && cached != null) {
+            byte[] body = Files.readAllBytes(bodyFile);
+            touch(bodyFile);
+            return body;
+        }
+
+        if (status < 200 || status >= 300) {
+            //На 408, 429 и 5xx хост может ответить иначе позже, остальные ошибки постоянные
+            boolean retryable = status == 408 || status == 429 || status >= 500;
+            throw new CoverFetchException("HTTP " + status + " for " + url, retryable);
+        }
+
+        byte[] body = response.body();
+        if (writeCache(response, body, metaFile, bodyFile)) {
+            trimCache();
+        }
+
+        return body;
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) throws IOException {
+        CompletableFuture<HttpResponse<byte[]>> future = httpClient.sendAsync(request, responseInfo -> {
+            long contentLength = responseInfo.headers().firstValueAsLong("Content-Length").orElse(-1);
+
+            if (contentLength > maxBytes) {
+                return new CancellingBodySubscriber();
+            }
+
+            return new LimitedBodySubscriber(maxBytes, contentLength);
+        });
+
+        HttpResponse<byte[]> response;
+        try {
+            //Общий дедлайн на весь ответ: медленный хост, отдающий тело по байту, не держит воркер дольше readTimeout
+            response = future.get(readTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new CoverFetchException("Timed out fetching " + request.uri(), true);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching " + request.uri(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IOException("Failed to fetch " + request.uri(), e.getCause());
+        }
+
+        if (response.body() == null && response.statusCode() >= 200 && response.statusCode() < 300) {
+            throw new CoverFetchException("Cover at " + request.uri() + " is larger than " + maxBytes + " bytes", false);
+        }
+
+        return response;
+    }
+
+    private Properties readMeta(Path metaFile, Path bodyFile) {
+        if (!Files.isRegularFile(metaFile) || !Files.isRegularFile(bodyFile)) {
+            return null;
+        }
+
+        Properties meta = new Properties();
+        try (InputStream in = Files.newInputStream(metaFile)) {
+            meta.load(in);
+        } catch (IOException e) {
+            return null;
+        }
+
+        return meta;
+    }
+
+    //Кешируем только ответы, которые можно перепроверить; файлы пишутся через временный файл и атомарный rename
+    private boolean writeCache(HttpResponse<byte[]> response, byte[] body, Path metaFile, Path bodyFile) throws IOException {
+        String eTag = response.headers().firstValue("ETag").orElse(null);
+        String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+
+        if (eTag == null && lastModified == null) {
+            Files.deleteIfExists(metaFile);
+            return false;
+        }
+
+        Properties meta = new Properties();
+        meta.setProperty("url", response.request().uri().toString());
+        if (eTag != null) {
+            meta.setProperty(ETAG, eTag);
+        }
+        if (lastModified != null) {
+            meta.setProperty(LAST_MODIFIED, lastModified);
+        }
+
+        Path bodyTemp = Files.createTempFile(cacheDirectory, "body", ".tmp");
+        Path metaTemp = Files.createTempFile(cacheDirectory, "meta", ".tmp");
+        try {
+            Files.write(bodyTemp, body);
+            try (OutputStream out = Files.newOutputStream(metaTemp)) {
+                meta.store(out, null);
+            }
+            Files.move(bodyTemp, bodyFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(metaTemp, metaFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(bodyTemp);
+            Files.deleteIfExists(metaTemp);
+        }
+
+        return true;
+    }
+
+    //Удаляет самые старые по времени последнего использования записи, пока кеш не уложится в бюджет
+    private synchronized void trimCache() throws IOException {
+        List<Path> bodies;
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            bodies = files.filter(file -> file.getFileName().toString().endsWith(".bin")).collect(Collectors.toList());
+        }
+
+        Map<Path, FileTime> lastUsed = new HashMap<>();
+        long total = 0;
+        for (Path body : bodies) {
+            try {
+                lastUsed.put(body, Files.getLastModifiedTime(body));
+                total += Files.size(body);
+            } catch (NoSuchFileException ignored) {
+                //Запись уже удалена параллельной очисткой
+            }
+        }
+
+        if (total <= cacheMaxBytes) {
+            return;
+        }
+
+        List<Path> oldestFirst = new ArrayList<>(lastUsed.keySet());
+        oldestFirst.sort(Comparator.comparing(lastUsed::get));
+
+        for (Path body : oldestFirst) {
+            if (total <= cacheMaxBytes) {
+                break;
+            }
+
+            long size;
+            try {
+                size = Files.size(body);
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+
+            String name = body.getFileName().toString();
+            Files.deleteIfExists(cacheDirectory.resolve(name.substring(0, name.length() - ".bin".length()) + ".properties"));
+            Files.deleteIfExists(body);
+            total -= size;
+        }
+    }
+
+    private void touch(Path bodyFile) {
+        try {
+            Files.setLastModifiedTime(bodyFile, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            //Не удалось обновить время использования - запись просто раньше попадет под вытеснение
+        }
+    }
+
+    //Content-Length уже больше лимита: сразу отменяет подписку, чтобы клиент не скачивал тело, и завершает с null
+    private static class CancellingBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+        private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+
+        @Override
+        public CompletionStage<byte[]> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.cancel();
+            result.complete(null);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.complete(null);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(null);
+        }
+    }
+
+    //Собирает тело ответа, пока оно укладывается в лимит; при превышении отменяет подписку и завершает с null
+    private static class LimitedBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+        private final long maxBytes;
+        private final ByteArrayOutputStream buffer;
+        private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        private Flow.Subscription subscription;
+
+        LimitedBodySubscriber(long maxBytes, long contentLength) {
+            this.maxBytes = maxBytes;
+            this.buffer = new ByteArrayOutputStream(contentLength > 0 ? (int) contentLength : 8192);
+        }
+
+        @Override
+        public CompletionStage<byte[]> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            if (result.isDone()) {
+                return;
+            }
+
+            for (ByteBuffer item : items) {
+                if (buffer.size() + (long) item.remaining() > maxBytes) {
+                    subscription.cancel();
+                    result.complete(null);
+                    return;
+                }
+
+                byte[] chunk = new byte[item.remaining()];
+                item.get(chunk);
+                buffer.writeBytes(chunk);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(buffer.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package ru.library.services.cover_service;
+
+import org.roaringbitmap.longlong.PeekableLongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.library.repositories.BookCoverRepository;
+import ru.library.util.TransactionUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Индекс "у книги есть обложка": сжатый битмап id книг, по которому отвечает список url обложек без обращения к байтам картинок.
+//Заполняется один раз запросом по cover_size и дальше поддерживается при создании/удалении обложек и книг
+@Component
+public class CoverIndex {
+    private final BookCoverRepository bookCoverRepository;
+
+    private final Roaring64Bitmap bookIds = new Roaring64Bitmap();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded;
+
+    @Autowired
+    public CoverIndex(BookCoverRepository bookCoverRepository) {
+        this.bookCoverRepository = bookCoverRepository;
+    }
+
+    public List<Long> findBookIdsAfter(long afterId, int limit) {
+        ensureLoaded();
+
+        List<Long> result = new ArrayList<>(limit);
+
+        lock.readLock().lock();
+        try {
+            PeekableLongIterator iterator = bookIds.getLongIteratorFrom(afterId + 1);
+            while (iterator.hasNext() && result.size() < limit) {
+                result.add(iterator.next());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return result;
+    }
+
+    public boolean hasCover(long bookId) {
+        ensureLoaded();
+
+        lock.readLock().lock();
+        try {
+            return bookIds.contains(bookId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Индекс меняем только после коммита, чтобы откат транзакции не оставил в нем лишних id
+    public void add(long bookId) {
+        TransactionUtil.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                bookIds.addLong(bookId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void remove(long bookId) {
+        TransactionUtil.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                bookIds.removeLong(bookId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                for (Long bookId : bookCoverRepository.findBookIdsWithCover()) {
+                    bookIds.addLong(bookId);
+                }
+                bookIds.runOptimize();
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package ru.library.services.cover_service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.library.dto.CoverStatusDTO;
+import ru.library.exceptions.img_exp.CoverFetchException;
+import ru.library.exceptions.img_exp.UnsupportedImageFormatException;
+import ru.library.models.CoverIngestJob;
+import ru.library.models.CoverStatus;
+import ru.library.repositories.CoverIngestJobRepository;
+import ru.library.util.ImageUtil;
+import ru.library.util.TransactionUtil;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Фоновая загрузка обложек: создание книги только ставит задачу в cover_ingest_job, а скачивает ограниченный пул потоков.
+//Задачи живут в БД, поэтому повторы по расписанию и рестарт приложения их не теряют: периодический обход
+//подбирает PENDING задачи, у которых подошло время следующей попытки
+@Service
+@Slf4j
+public class CoverIngestService {
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final Duration HOST_PERMITS_IDLE = Duration.ofMinutes(10);
+    private static final int MAX_TRACKED_HOSTS = 10_000;
+
+    private final CoverIngestJobRepository coverIngestJobRepository;
+    private final CoverService coverService;
+    private final CoverFetcher coverFetcher;
+
+    private final ThreadPoolExecutor executor;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    //Разрешения по хостам живут, пока к хосту обращаются: загрузка длится секунды (read-timeout 20s), поэтому
+    //семафор с занятыми разрешениями не истекает, а хосты, встреченные однажды, не копятся вечно
+    private final Cache<String, Semaphore> hostPermits = Caffeine.newBuilder()
+            .expireAfterAccess(HOST_PERMITS_IDLE)
+            .maximumSize(MAX_TRACKED_HOSTS)
+            .build();
+
+    @Value("${library.covers.ingest.per-host:2}")
+    private int permitsPerHost;
+
+    @Value("${library.covers.ingest.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${library.covers.ingest.backoff-ms:2000}")
+    private long backoffMs;
+
+    @Value("${library.covers.ingest.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    @Value("${library.covers.ingest.host-busy-delay-ms:1000}")
+    private long hostBusyDelayMs;
+
+    @Autowired
+    public CoverIngestService(CoverIngestJobRepository coverIngestJobRepository, CoverService coverService, CoverFetcher coverFetcher,
+                              @Value("${library.covers.ingest.threads:4}") int threads,
+                              @Value("${library.covers.ingest.queue-capacity:500}") int queueCapacity) {
+        this.coverIngestJobRepository = coverIngestJobRepository;
+        this.coverService = coverService;
+        this.coverFetcher = coverFetcher;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "cover-ingest-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Transactional
+    public void enqueue(Long bookId, String sourceUrl) {
+        LocalDateTime now = LocalDateTime.now();
+
+        CoverIngestJob job = new CoverIngestJob();
+        job.setBookId(bookId);
+        job.setSourceUrl(sourceUrl);
+        job.setStatus(CoverStatus.PENDING);
+        job.setAttempts(0);
+        job.setNextAttemptAt(now);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+
+        coverIngestJobRepository.save(job);
+
+        //Задачу отдаем пулу только после коммита, иначе поток может не увидеть только что созданную запись
+        TransactionUtil.afterCommit(() -> submit(bookId));
+    }
+
+    public Optional<CoverStatusDTO> getStatus(Long bookId) {
+        return coverIngestJobRepository.findById(bookId)
+                .map(job -> new CoverStatusDTO(job.getBookId(), job.getStatus(), job.getAttempts(),
+                        job.getLastError(), job.getNextAttemptAt(), job.getUpdatedAt()));
+    }
+
+    //Подбирает задачи после рестарта, повторы после backoff и то, что не влезло в очередь пула
+    @Scheduled(fixedDelayString = "${library.covers.ingest.sweep-ms:5000}")
+    public void sweep() {
+        int capacity = executor.getQueue().remainingCapacity();
+
+        if (capacity == 0) {
+            return;
+        }
+
+        for (Long bookId : coverIngestJobRepository.findDuePendingBookIds(LocalDateTime.now(), Limit.of(capacity))) {
+            submit(bookId);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void submit(Long bookId) {
+        if (!inFlight.add(bookId)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> process(bookId));
+        } catch (RejectedExecutionException e) {
+            //Очередь заполнена: задача остается PENDING и будет подобрана следующим обходом
+            inFlight.remove(bookId);
+        }
+    }
+
+    private void process(Long bookId) {
+        boolean replaced = false;
+
+        try {
+            CoverIngestJob job = coverIngestJobRepository.findById(bookId).orElse(null);
+
+            if (job == null || job.getStatus() != CoverStatus.PENDING) {
+                return;
+            }
+
+            //Не больше permitsPerHost одновременных загрузок с одного хоста; если занято - пробуем чуть позже, не тратя попытку
+            Semaphore permits = hostPermits.get(hostOf(job.getSourceUrl()), host -> new Semaphore(permitsPerHost));
+            LocalDateTime readUpdatedAt = job.getUpdatedAt();
+            int readAttempts = job.getAttempts();
+
+            if (!permits.tryAcquire()) {
+                job.setNextAttemptAt(LocalDateTime.now().plus(hostBusyDelayMs, ChronoUnit.MILLIS));
+                replaced = !finish(job, readUpdatedAt, readAttempts);
+                return;
+            }
+
+            try {
+                ingest(job);
+            } finally {
+                permits.release();
+            }
+
+            replaced = !finish(job, readUpdatedAt, readAttempts);
+        } catch (RuntimeException e) {
+            log.error("Cover ingestion for book {} failed unexpectedly", bookId, e);
+        } finally {
+            inFlight.remove(bookId);
+        }
+
+        //Пока шла загрузка, enqueue заменил задачу, а его submit пропустили из-за inFlight - берем новую задачу сразу.
+        //Обложку по старому url saveCover мог уже записать, новая задача перезапишет ее
+        if (replaced) {
+            log.debug("Cover ingest job for book {} was replaced during download, resubmitting", bookId);
+            submit(bookId);
+        }
+    }
+
+    private void ingest(CoverIngestJob job) {
+        job.setAttempts(job.getAttempts() + 1);
+
+        try {
+            byte[] image = coverFetcher.fetch(job.getSourceUrl());
+            String contentType = ImageUtil.detectContentType(image);
+
+            if (contentType == null) {
+                throw new UnsupportedImageFormatException("Cover image must be JPEG, PNG, GIF or WebP");
+            }
+
+            coverService.saveCover(job.getBookId(), image, contentType);
+
+            job.setStatus(CoverStatus.READY);
+            job.setLastError(null);
+        } catch (UnsupportedImageFormatException e) {
+            //Повтор не поможет: хост отдал не картинку
+            job.setStatus(CoverStatus.FAILED);
+            job.setLastError(truncate(e.getMessage()));
+        } catch (CoverFetchException e) {
+            job.setLastError(truncate(e.getMessage()));
+
+            if (!e.isRetryable() || job.getAttempts() >= maxAttempts) {
+                job.setStatus(CoverStatus.FAILED);
+            } else {
+                job.setNextAttemptAt(LocalDateTime.now().plus(backoffDelayMs(job.getAttempts()), ChronoUnit.MILLIS));
+            }
+        } catch (Exception e) {
+            job.setLastError(truncate(e.getClass().getSimpleName() + ": " + e.getMessage()));
+
+            if (job.getAttempts() >= maxAttempts) {
+                job.setStatus(CoverStatus.FAILED);
+            } else {
+                job.setNextAttemptAt(LocalDateTime.now().plus(backoffDelayMs(job.getAttempts()), ChronoUnit.MILLIS));
+            }
+        }
+    }
+
+    //false - задачу заменили после чтения, результат не записан
+    private boolean finish(CoverIngestJob job, LocalDateTime readUpdatedAt, int readAttempts) {
+        return coverIngestJobRepository.updateIfUnchanged(job.getBookId(), job.getSourceUrl(), readUpdatedAt, readAttempts,
+                job.getStatus(), job.getAttempts(), job.getLastError(), job.getNextAttemptAt(), LocalDateTime.now()) > 0;
+    }
+
+    //Экспоненциальная задержка с небольшим случайным разбросом, чтобы повторы к одному хосту не шли пачкой
+    private long backoffDelayMs(int attempts) {
+        long delay = Math.min(maxBackoffMs, backoffMs << Math.min(attempts - 1, 20));
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host.toLowerCase(Locale.ROOT) : "";
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
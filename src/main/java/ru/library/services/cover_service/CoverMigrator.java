@@ -0,0 +1,49 @@
+package ru.library.services.cover_service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+//Фоновый перенос старых обложек из колонки image в файловое хранилище, порциями по batch-size.
+//Каждая порция - отдельная транзакция, поэтому перенос можно прервать и продолжить после рестарта
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "library.covers.storage", havingValue = "filesystem")
+public class CoverMigrator {
+    private final CoverService coverService;
+
+    @Value("${library.covers.migration.batch-size:50}")
+    private int batchSize;
+
+    private volatile boolean finished;
+
+    @Autowired
+    public CoverMigrator(CoverService coverService) {
+        this.coverService = coverService;
+    }
+
+    @Scheduled(initialDelayString = "${library.covers.migration.initial-delay-ms:30000}",
+            fixedDelayString = "${library.covers.migration.delay-ms:60000}")
+    public void migrate() {
+        if (finished) {
+            return;
+        }
+
+        int total = 0;
+        int moved;
+
+        do {
+            moved = coverService.moveToStorage(batchSize);
+            total += moved;
+        } while (moved > 0);
+
+        if (total > 0) {
+            log.info("Moved {} covers from database to file storage", total);
+        }
+
+        finished = true;
+    }
+}
@@ -0,0 +1,206 @@
+package ru.library.services.cover_service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.library.dto.BookCoverView;
+import ru.library.models.BookCover;
+import ru.library.models.BookCoverVariant;
+import ru.library.models.BookCoverVariantId;
+import ru.library.models.CoverSize;
+import ru.library.repositories.BookCoverRepository;
+import ru.library.repositories.BookCoverVariantRepository;
+import ru.library.util.ETagUtil;
+import ru.library.util.ImageUtil;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Service
+@Slf4j
+public class CoverService {
+    private final BookCoverRepository bookCoverRepository;
+    private final BookCoverVariantRepository bookCoverVariantRepository;
+    private final CoverIndex coverIndex;
+    private final CoverStorage coverStorage;
+    private final CoverCache coverCache;
+
+    //Больше этого числа пикселей картинку не декодируем: уменьшенных копий у нее не будет, отдается оригинал
+    @Value("${library.covers.max-pixels:25000000}")
+    private long maxPixels;
+
+    @Autowired
+    public CoverService(BookCoverRepository bookCoverRepository, BookCoverVariantRepository bookCoverVariantRepository, CoverIndex coverIndex, CoverStorage coverStorage, CoverCache coverCache) {
+        this.bookCoverRepository = bookCoverRepository;
+        this.bookCoverVariantRepository = bookCoverVariantRepository;
+        this.coverIndex = coverIndex;
+        this.coverStorage = coverStorage;
+        this.coverCache = coverCache;
+    }
+
+    @Transactional
+    public void saveCover(Long bookId, byte[] image, String contentType) {
+        if (image == null || image.length == 0) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        String contentHash = ETagUtil.contentHash(image);
+
+        evictCached(bookId);
+
+        bookCoverRepository.save(new BookCover(bookId, store(contentHash, image), image.length,
+                contentHash, contentType, now));
+
+        bookCoverVariantRepository.deleteByBookId(bookId);
+        saveVariants(bookId, image, contentType, now);
+
+        coverIndex.add(bookId);
+    }
+
+    //Если уменьшенной копии нет (картинка и так маленькая или формат не читается ImageIO), отдаем оригинал
+    @Transactional(readOnly = true)
+    public BookCoverView findCoverView(Long bookId, CoverSize size) {
+        if (size != CoverSize.ORIGINAL) {
+            Optional<BookCoverView> variant = bookCoverVariantRepository.findViewById(bookId, size.getMaxSide());
+            if (variant.isPresent()) {
+                return variant.get();
+            }
+        }
+
+        return bookCoverRepository.findViewById(bookId).orElse(null);
+    }
+
+    //Файл из хранилища находится по хэшу без обращения к БД; байты из колонки image читаются только для
+    //хранилища в БД и для обложек, которые мигратор еще не перенес
+    public Resource getCoverImage(BookCoverView cover, CoverSize size) {
+        Resource stored = coverStorage.get(cover.contentHash());
+
+        if (stored != null) {
+            return stored;
+        }
+
+        //Файлы и так отдаются из page cache через sendfile, поэтому вне heap кешируем только байты из БД
+        Resource cached = coverCache.get(cover.contentHash(), () -> loadResource(cover.bookId(), size));
+
+        if (cached != null) {
+            return cached;
+        }
+
+        byte[] image = loadImage(cover.bookId(), size);
+
+        if (image == null || image.length == 0) {
+            return null;
+        }
+
+        coverCache.put(cover.contentHash(), image);
+        return new ByteArrayResource(image);
+    }
+
+    //Переносит порцию обложек и их уменьшенных копий из колонки image в хранилище, возвращает число перенесенных строк
+    @Transactional
+    public int moveToStorage(int batchSize) {
+        int moved = 0;
+
+        for (Long bookId : bookCoverRepository.findBookIdsWithStoredImage(Limit.of(batchSize))) {
+            BookCover cover = bookCoverRepository.findById(bookId).orElseThrow();
+            cover.setContentHash(moveImage(cover.getContentHash(), cover.getImage()));
+            cover.setImage(null);
+            moved++;
+        }
+
+        for (BookCoverVariantId id : bookCoverVariantRepository.findIdsWithStoredImage(Limit.of(batchSize))) {
+            BookCoverVariant variant = bookCoverVariantRepository.findById(id).orElseThrow();
+            variant.setContentHash(moveImage(variant.getContentHash(), variant.getImage()));
+            variant.setImage(null);
+            moved++;
+        }
+
+        return moved;
+    }
+
+    private Resource loadResource(Long bookId, CoverSize size) {
+        byte[] image = loadImage(bookId, size);
+        return image == null || image.length == 0 ? null : new ByteArrayResource(image);
+    }
+
+    //Ключ кеша - хэш содержимого, новая обложка получит новый ключ; старые записи убираем сразу, чтобы не занимали бюджет
+    private void evictCached(Long bookId) {
+        bookCoverRepository.findViewById(bookId).ifPresent(cover -> coverCache.invalidate(cover.contentHash()));
+
+        for (CoverSize size : CoverSize.values()) {
+            if (size != CoverSize.ORIGINAL) {
+                bookCoverVariantRepository.findViewById(bookId, size.getMaxSide())
+                        .ifPresent(variant -> coverCache.invalidate(variant.contentHash()));
+            }
+        }
+    }
+
+    private byte[] loadImage(Long bookId, CoverSize size) {
+        if (size != CoverSize.ORIGINAL) {
+            Optional<BookCoverVariant> variant = bookCoverVariantRepository.findById(new BookCoverVariantId(bookId, size.getMaxSide()));
+            if (variant.isPresent()) {
+                return variant.get().getImage();
+            }
+        }
+
+        return bookCoverRepository.findById(bookId)
+                .map(BookCover::getImage)
+                .orElse(null);
+    }
+
+    private void saveVariants(Long bookId, byte[] image, String contentType, LocalDateTime now) {
+        for (CoverSize size : CoverSize.values()) {
+            if (size == CoverSize.ORIGINAL) {
+                continue;
+            }
+
+            try {
+                ImageUtil.ScaledImage scaled = ImageUtil.scale(image, contentType, size.getMaxSide(), maxPixels);
+
+                if (scaled != null) {
+                    String contentHash = ETagUtil.contentHash(scaled.data());
+
+                    bookCoverVariantRepository.save(new BookCoverVariant(
+                            new BookCoverVariantId(bookId, size.getMaxSide()),
+                            store(contentHash, scaled.data()),
+                            scaled.data().length,
+                            contentHash,
+                            scaled.contentType(),
+                            now
+                    ));
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to build {}px cover variant for book {}: {}", size.getMaxSide(), bookId, e.getMessage());
+            }
+        }
+    }
+
+    //Возвращает то, что нужно записать в колонку image: сами байты для хранилища в БД, null для внешнего
+    private byte[] store(String contentHash, byte[] image) {
+        if (!coverStorage.storesOutsideDatabase()) {
+            return image;
+        }
+
+        try {
+            coverStorage.put(contentHash, image);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store cover " + contentHash, e);
+        }
+
+        return null;
+    }
+
+    private String moveImage(String contentHash, byte[] image) {
+        String hash = contentHash != null ? contentHash : ETagUtil.contentHash(image);
+        store(hash, image);
+        return hash;
+    }
+}
@@ -0,0 +1,17 @@
+package ru.library.services.cover_service;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+
+//Где лежат байты обложек. Метаданные (размер, хэш, тип) всегда остаются в book_cover/book_cover_variant.
+//Реализация выбирается свойством library.covers.storage=database|filesystem
+public interface CoverStorage {
+    //true - байты хранятся вне БД и колонка image остается пустой
+    boolean storesOutsideDatabase();
+
+    void put(String contentHash, byte[] image) throws IOException;
+
+    //null, если по этому хэшу в хранилище ничего нет
+    Resource get(String contentHash);
+}
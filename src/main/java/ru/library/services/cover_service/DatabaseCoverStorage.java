@@ -0,0 +1,24 @@
+package ru.library.services.cover_service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+//Хранилище по умолчанию: байты остаются в колонке image и читаются через репозитории
+@Component
+@ConditionalOnProperty(name = "library.covers.storage", havingValue = "database", matchIfMissing = true)
+public class DatabaseCoverStorage implements CoverStorage {
+    @Override
+    public boolean storesOutsideDatabase() {
+        return false;
+    }
+
+    @Override
+    public void put(String contentHash, byte[] image) {
+    }
+
+    @Override
+    public Resource get(String contentHash) {
+        return null;
+    }
+}
@@ -0,0 +1,70 @@
+package ru.library.services.cover_service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.regex.Pattern;
+
+//Обложки в локальной директории с адресацией по SHA-256: одинаковые обложки разных изданий лежат одним файлом.
+//Файл вида <dir>/ab/abcdef..., запись через временный файл и атомарный rename, поэтому читатели не видят недописанных файлов
+@Component
+@ConditionalOnProperty(name = "library.covers.storage", havingValue = "filesystem")
+public class FileSystemCoverStorage implements CoverStorage {
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path directory;
+
+    public FileSystemCoverStorage(@Value("${library.covers.directory:covers}") String directory) throws IOException {
+        this.directory = Path.of(directory).toAbsolutePath().normalize();
+        Files.createDirectories(this.directory);
+    }
+
+    @Override
+    public boolean storesOutsideDatabase() {
+        return true;
+    }
+
+    @Override
+    public void put(String contentHash, byte[] image) throws IOException {
+        Path target = resolve(contentHash);
+
+        if (Files.exists(target)) {
+            return;
+        }
+
+        Files.createDirectories(target.getParent());
+
+        Path temp = Files.createTempFile(target.getParent(), contentHash, ".tmp");
+        try {
+            Files.write(temp, image);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Resource get(String contentHash) {
+        if (contentHash == null || !HASH_PATTERN.matcher(contentHash).matches()) {
+            return null;
+        }
+
+        Path path = resolve(contentHash);
+        return Files.isRegularFile(path) ? new FileSystemResource(path) : null;
+    }
+
+    private Path resolve(String contentHash) {
+        if (!HASH_PATTERN.matcher(contentHash).matches()) {
+            throw new IllegalArgumentException("Invalid cover hash: " + contentHash);
+        }
+
+        return directory.resolve(contentHash.substring(0, 2)).resolve(contentHash);
+    }
+}
@@ -1,32 +1,63 @@
 package ru.library.services.general_service;
 
-import jakarta.transaction.Transactional;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.io.Resource;
+import org.springframework.transaction.annotation.Transactional;
+import ru.library.config.CacheConfig;
+import ru.library.dto.BookCoverView;
+import ru.library.dto.BookDTO;
+import ru.library.dto.BookView;
+import ru.library.dto.CursorPageDTO;
 import ru.library.models.Book;
+import ru.library.models.CoverSize;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface GeneralBookServiceInf {
     @Transactional
     List<Book> getAllBooks();
 
+    @Transactional(readOnly = true)
+    CursorPageDTO<BookView> getBooksPage(String cursor, Integer size);
+
+    //Не кешируется: возвращает управляемую сущность с ленивыми связями для изменения внутри транзакции; контроллеры читают через findBookViewById
     @Transactional
     Book findBookById(Long bookId);
 
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.BOOKS_CACHE, key = "#bookId")
+    BookView findBookViewById(Long bookId);
+
+    BookDTO convertBookViewToBookDTO(BookView bookView);
+
+    @Transactional(readOnly = true)
+    void exportBooks(OutputStream outputStream) throws IOException;
+
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#bookId")
     void freeBook(Long bookId);
 
-    @Transactional
-    byte[] getCoverImage(Long bookId);
+    //Без транзакции: файл из хранилища отдается без БД, запасное чтение из колонки image идет через репозиторий
+    Resource getCoverImage(BookCoverView cover, CoverSize size);
 
-    @Transactional
-    List<String> getAllCoverImagesUrl();
+    @Transactional(readOnly = true)
+    BookCoverView findCoverViewById(Long bookId, CoverSize size);
+
+    @Transactional(readOnly = true)
+    CursorPageDTO<String> getCoverImagesUrlPage(String cursor, Integer size);
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#bookId")
     void viewBookCover(Long bookId, Long personId);
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#bookId")
     void viewBookContent(Long bookId, Long personId);
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#bookId")
     void releaseBookAfterViewing(Long bookId);
 }
@@ -1,8 +1,12 @@
 package ru.library.services.general_service;
 
-import jakarta.transaction.Transactional;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.transaction.annotation.Transactional;
+import ru.library.config.CacheConfig;
 import ru.library.dto.BookDTO;
+import ru.library.dto.CursorPageDTO;
 import ru.library.dto.PersonDTO;
+import ru.library.dto.PersonView;
 import ru.library.models.Person;
 
 import java.util.List;
@@ -11,14 +15,24 @@ public interface GeneralPeopleServiceInf {
     @Transactional
     List<Person> getAllPeople();
 
+    @Transactional(readOnly = true)
+    CursorPageDTO<PersonView> getPeoplePage(String cursor, Integer size);
+
+    //Не кешируется: возвращает управляемую сущность с ленивыми связями для изменения внутри транзакции; контроллеры читают через findPersonViewById
     @Transactional
     Person findPersonById(Long id);
 
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.PEOPLE_CACHE, key = "#id")
+    PersonView findPersonViewById(Long id);
+
     @Transactional
     List<BookDTO> getBooksByPersonId(Long id);
 
     PersonDTO convertPersonToPersonDTO(Person person);
 
+    PersonDTO convertPersonViewToPersonDTO(PersonView personView);
+
 //    Person convertPersonDTOToPerson(PersonDTO personDTO);
 //
 //    void enrichPerson(Person person);
@@ -0,0 +1,88 @@
+package ru.library.services.people_service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.library.repositories.PeopleRepository;
+import ru.library.util.BloomFilter;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+//Проверка занятости full_name для регистрации. Bloom-фильтр занятых имен отвечает "точно свободно" без запроса,
+//"возможно занято" проверяется existsByName по уникальному индексу. Удаления и переименования фильтр не видит -
+//это только лишний запрос, а имена, занятые другими экземплярами, подтягивает периодическая перестройка
+@Service
+@Slf4j
+public class NameAvailabilityService {
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final PeopleRepository peopleRepository;
+    private final long expectedNames;
+
+    //null, пока фильтр не прогрет - до этого каждый вызов идет в БД
+    private volatile BloomFilter takenNames;
+    //Имена, занятые с начала текущей перестройки: переносятся в новый фильтр, чтобы он их не пропустил
+    private volatile Set<String> markedSinceRebuild = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public NameAvailabilityService(PeopleRepository peopleRepository,
+                                   @Value("${library.people.name-filter.expected-size:100000}") long expectedNames) {
+        this.peopleRepository = peopleRepository;
+        this.expectedNames = expectedNames;
+    }
+
+    public boolean isTaken(String name) {
+        BloomFilter filter = takenNames;
+
+        if (name == null || (filter != null && !filter.mightContain(name))) {
+            return false;
+        }
+
+        return peopleRepository.existsByName(name);
+    }
+
+    //Добавляем до коммита: если транзакция откатится, имя останется в фильтре и будет стоить один лишний запрос
+    public void markTaken(String name) {
+        if (name == null) {
+            return;
+        }
+
+        markedSinceRebuild.add(name);
+
+        BloomFilter filter = takenNames;
+        if (filter != null) {
+            filter.put(name);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${library.people.name-filter.refresh-ms:600000}", fixedDelayString = "${library.people.name-filter.refresh-ms:600000}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        Set<String> marked = ConcurrentHashMap.newKeySet();
+        markedSinceRebuild = marked;
+
+        long count = peopleRepository.count();
+        BloomFilter filter = new BloomFilter(Math.max(expectedNames, 2 * count), FALSE_POSITIVE_RATE);
+        AtomicLong loaded = new AtomicLong();
+
+        try (Stream<String> names = peopleRepository.streamAllNames()) {
+            names.forEach(name -> {
+                filter.put(name);
+                loaded.incrementAndGet();
+            });
+        }
+
+        takenNames = filter;
+        marked.forEach(filter::put);
+        log.debug("Name filter rebuilt with {} names", loaded.get());
+    }
+}
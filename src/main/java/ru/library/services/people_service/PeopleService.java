@@ -1,16 +1,21 @@
 package ru.library.services.people_service;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import ru.library.dto.BookDTO;
+import ru.library.dto.CursorPageDTO;
+import ru.library.dto.OwnedBookView;
 import ru.library.dto.PersonDTO;
+import ru.library.dto.PersonView;
 import ru.library.exceptions.person_exp.PersonNotFoundException;
+import ru.library.mappers.PersonMapper;
 import ru.library.models.Person;
+import ru.library.repositories.BookRepository;
 import ru.library.repositories.PeopleRepository;
 import ru.library.services.book_service.BookService;
 import ru.library.services.general_service.GeneralPeopleServiceInf;
+import ru.library.util.CursorUtil;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,13 +23,17 @@ import java.util.Optional;
 @Service
 public class PeopleService implements GeneralPeopleServiceInf {
     private final PeopleRepository peopleRepository;
+    private final BookRepository bookRepository;
     private final BookService bookService;
-    private final ModelMapper modelMapper;
+    private final PersonMapper personMapper;
+    private final CursorUtil cursorUtil;
     @Autowired
-    public PeopleService(PeopleRepository peopleRepository, BookService bookService, ModelMapper modelMapper, PasswordEncoder passwordEncoder) {
+    public PeopleService(PeopleRepository peopleRepository, BookRepository bookRepository, BookService bookService, PersonMapper personMapper, PasswordEncoder passwordEncoder, CursorUtil cursorUtil) {
         this.peopleRepository = peopleRepository;
+        this.bookRepository = bookRepository;
         this.bookService = bookService;
-        this.modelMapper = modelMapper;
+        this.personMapper = personMapper;
+        this.cursorUtil = cursorUtil;
     }
 
     @Override
@@ -32,6 +41,13 @@ public class PeopleService implements GeneralPeopleServiceInf {
         return  peopleRepository.findAll();
     }
 
+    @Override
+    public CursorPageDTO<PersonView> getPeoplePage(String cursor, Integer size) {
+        int pageSize = cursorUtil.resolvePageSize(size);
+        List<PersonView> people = peopleRepository.findViewsAfter(cursorUtil.decode(cursor), cursorUtil.fetchLimit(pageSize));
+        return cursorUtil.toPage(people, pageSize, PersonView::id);
+    }
+
     @Override
     public Person findPersonById(Long id) {
         Optional<Person> personById = peopleRepository.findById(id);
@@ -39,19 +55,38 @@ public class PeopleService implements GeneralPeopleServiceInf {
         return personById.orElseThrow(() -> new PersonNotFoundException("Person with this id is not found"));
     }
 
+    @Override
+    public PersonView findPersonViewById(Long id) {
+        return peopleRepository.findViewById(id)
+                .orElseThrow(() -> new PersonNotFoundException("Person with this id is not found"));
+    }
+
     @Override
     public List<BookDTO> getBooksByPersonId(Long id) {
-        Optional<Person> personById = peopleRepository.findById(id);
-        if (personById.isPresent()) {
-            return personById.get().getBooks().stream()
-                    .map(bookService::convertBookToBookDTO)
-                    .toList();
-        } else {
-            throw new RuntimeException("Person not found");
+        List<OwnedBookView> books = bookRepository.findOwnedViewsByPersonId(id);
+
+        //Пустой список - либо у человека нет книг, либо его нет; второй запрос только в этом случае
+        if (books.isEmpty() && !peopleRepository.existsById(id)) {
+            throw new PersonNotFoundException("Person with this id is not found");
         }
+
+        return books.stream()
+                .map(bookService::convertOwnedBookViewToBookDTO)
+                .toList();
     }
 
     public PersonDTO convertPersonToPersonDTO(Person person) {
-        return modelMapper.map(person, PersonDTO.class);
+        return personMapper.toDto(person);
+    }
+
+    public PersonDTO convertPersonViewToPersonDTO(PersonView personView) {
+        return new PersonDTO(
+                personView.name(),
+                personView.age(),
+                personView.email(),
+                personView.phoneNumber(),
+                null,
+                personView.role()
+        );
     }
 }
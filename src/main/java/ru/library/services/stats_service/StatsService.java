@@ -0,0 +1,58 @@
+package ru.library.services.stats_service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import ru.library.dto.CacheStatsDTO;
+import ru.library.dto.CoverCacheStatsDTO;
+import ru.library.dto.PasswordHashingStatsDTO;
+import ru.library.security.PasswordHashingExecutor;
+import ru.library.services.cover_service.CoverCache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Service
+public class StatsService {
+    private final CacheManager cacheManager;
+    private final CoverCache coverCache;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    public StatsService(CacheManager cacheManager, CoverCache coverCache, PasswordHashingExecutor passwordHashingExecutor) {
+        this.cacheManager = cacheManager;
+        this.coverCache = coverCache;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+    }
+
+    public Map<String, CacheStatsDTO> getCacheStats() {
+        Map<String, CacheStatsDTO> result = new LinkedHashMap<>();
+
+        for (String cacheName : cacheManager.getCacheNames()) {
+            org.springframework.cache.Cache cache = cacheManager.getCache(cacheName);
+
+            if (cache != null && cache.getNativeCache() instanceof Cache<?, ?> caffeineCache) {
+                CacheStats stats = caffeineCache.stats();
+                result.put(cacheName, new CacheStatsDTO(
+                        caffeineCache.estimatedSize(),
+                        stats.hitCount(),
+                        stats.missCount(),
+                        stats.hitRate(),
+                        stats.evictionCount()
+                ));
+            }
+        }
+
+        return result;
+    }
+
+    public CoverCacheStatsDTO getCoverCacheStats() {
+        return coverCache.getStats();
+    }
+
+    public PasswordHashingStatsDTO getPasswordHashingStats() {
+        return passwordHashingExecutor.getStats();
+    }
+}
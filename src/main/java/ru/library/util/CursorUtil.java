@@ -0,0 +1,71 @@
+package ru.library.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import ru.library.dto.CursorPageDTO;
+import ru.library.exceptions.page_exp.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+//Keyset-пагинация: курсор - это закодированный id последней записи страницы,
+//следующая страница выбирается через "id > курсор order by id", поэтому глубокие страницы стоят столько же, сколько первая
+@Component
+public class CursorUtil {
+
+    @Value("${library.pagination.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${library.pagination.max-size:100}")
+    private int maxPageSize;
+
+    public long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            long lastId = Long.parseLong(decoded);
+
+            if (lastId < 0) {
+                throw new InvalidCursorException("Invalid cursor: " + cursor);
+            }
+
+            return lastId;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public int resolvePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return Math.min(defaultPageSize, maxPageSize);
+        }
+        return Math.min(size, maxPageSize);
+    }
+
+    //Запрашиваем на одну запись больше, чтобы понять, есть ли следующая страница
+    public Limit fetchLimit(int pageSize) {
+        return Limit.of(pageSize + 1);
+    }
+
+    public <T> CursorPageDTO<T> toPage(List<T> rows, int pageSize, ToLongFunction<T> idExtractor) {
+        if (rows.size() <= pageSize) {
+            return new CursorPageDTO<>(rows, null);
+        }
+
+        List<T> page = rows.subList(0, pageSize);
+        String nextCursor = encode(idExtractor.applyAsLong(page.get(pageSize - 1)));
+
+        return new CursorPageDTO<>(page, nextCursor);
+    }
+}
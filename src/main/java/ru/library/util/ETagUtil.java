@@ -0,0 +1,67 @@
+package ru.library.util;
+
+import ru.library.dto.BookCoverView;
+import ru.library.dto.BookView;
+import ru.library.dto.PersonView;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+
+//Сильные валидаторы для условных GET: тело ответа строится только если ETag клиента устарел
+public class ETagUtil {
+
+    public static String bookETag(BookView book) {
+        if (book.updatedAt() != null) {
+            return "\"b-" + book.bookId() + "-" + Long.toHexString(lastModified(book.updatedAt())) + "\"";
+        }
+
+        return "\"b-" + book.bookId() + "-" + hash(book.title(), book.yearOfProduction(), book.author(), book.annotation()) + "\"";
+    }
+
+    public static String personETag(PersonView person) {
+        return "\"p-" + person.id() + "-" + hash(person.name(), person.age(), person.email(), person.phoneNumber(), person.role()) + "\"";
+    }
+
+    public static String coverETag(BookCoverView cover) {
+        if (cover.contentHash() == null) {
+            return null;
+        }
+
+        return "\"c-" + cover.contentHash() + "\"";
+    }
+
+    public static long lastModified(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return -1;
+        }
+
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public static String contentHash(byte[] data) {
+        return HexFormat.of().formatHex(sha256().digest(data));
+    }
+
+    private static String hash(Object... values) {
+        MessageDigest digest = sha256();
+
+        for (Object value : values) {
+            digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+
+        return HexFormat.of().formatHex(digest.digest(), 0, 8);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
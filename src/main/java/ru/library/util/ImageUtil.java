@@ -1,13 +1,155 @@
 package ru.library.util;
 
+import org.springframework.http.MediaType;
+import ru.library.exceptions.img_exp.ImageTooLargeException;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.Iterator;
 
 public class ImageUtil {
-    public static byte[] downloadImage(String url) throws IOException {
-        try (InputStream in = new URL(url).openStream()) {
-            return in.readAllBytes();
+    static {
+        //Не создаем временные файлы на диске при чтении/записи картинок
+        ImageIO.setUseCache(false);
+    }
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] JPEG_SIGNATURE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] GIF87_SIGNATURE = {'G', 'I', 'F', '8', '7', 'a'};
+    private static final byte[] GIF89_SIGNATURE = {'G', 'I', 'F', '8', '9', 'a'};
+    private static final byte[] RIFF_SIGNATURE = {'R', 'I', 'F', 'F'};
+    private static final byte[] WEBP_SIGNATURE = {'W', 'E', 'B', 'P'};
+
+    public static final String IMAGE_WEBP_VALUE = "image/webp";
+
+    //Проверяет url обложки до постановки в очередь загрузки: принимаем только абсолютные http(s) адреса
+    public static boolean isValidImageUrl(String url) {
+        try {
+            URI uri = new URI(url);
+            String scheme = uri.getScheme();
+            return uri.getHost() != null && ("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme));
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+
+    //Определяет тип картинки по первым байтам. Для форматов, которые мы не принимаем, возвращает null
+    public static String detectContentType(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+
+        if (startsWith(data, 0, JPEG_SIGNATURE)) {
+            return MediaType.IMAGE_JPEG_VALUE;
+        }
+        if (startsWith(data, 0, PNG_SIGNATURE)) {
+            return MediaType.IMAGE_PNG_VALUE;
         }
+        if (startsWith(data, 0, GIF87_SIGNATURE) || startsWith(data, 0, GIF89_SIGNATURE)) {
+            return MediaType.IMAGE_GIF_VALUE;
+        }
+        if (startsWith(data, 0, RIFF_SIGNATURE) && startsWith(data, 8, WEBP_SIGNATURE)) {
+            return IMAGE_WEBP_VALUE;
+        }
+
+        return null;
+    }
+
+    //Уменьшает картинку так, чтобы большая сторона была не больше maxSide.
+    //Возвращает null, если уменьшать не нужно или ImageIO не умеет читать формат (например WebP) - тогда отдается оригинал.
+    //Размеры берутся из заголовка до декодирования: PNG в пару КБ может заявить 50000x50000 и съесть гигабайты heap
+    public static ScaledImage scale(byte[] data, String contentType, int maxSide, long maxPixels) throws IOException {
+        BufferedImage source;
+
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : Collections.emptyIterator();
+
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new ImageTooLargeException("Image of " + reader.getWidth(0) + "x" + reader.getHeight(0) +
+                            " pixels exceeds the limit of " + maxPixels + " pixels");
+                }
+
+                source = reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        int width = source.getWidth();
+        int height = source.getHeight();
+
+        if (Math.max(width, height) <= maxSide) {
+            return null;
+        }
+
+        double ratio = (double) maxSide / Math.max(width, height);
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+
+        //JPEG не поддерживает прозрачность, остальные форматы уменьшаем в PNG
+        boolean opaque = MediaType.IMAGE_JPEG_VALUE.equals(contentType);
+        int imageType = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+
+        //Уменьшаем в несколько шагов, не больше чем вдвое за раз: билинейная интерполяция за один большой шаг дает "лесенку"
+        BufferedImage current = source;
+        int currentWidth = width;
+        int currentHeight = height;
+
+        do {
+            currentWidth = Math.max(targetWidth, currentWidth / 2);
+            currentHeight = Math.max(targetHeight, currentHeight / 2);
+
+            BufferedImage step = new BufferedImage(currentWidth, currentHeight, imageType);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+
+            current = step;
+        } while (currentWidth != targetWidth || currentHeight != targetHeight);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(current, opaque ? "jpeg" : "png", out);
+
+        return new ScaledImage(out.toByteArray(), opaque ? MediaType.IMAGE_JPEG_VALUE : MediaType.IMAGE_PNG_VALUE);
+    }
+
+    public record ScaledImage(byte[] data, String contentType) {
+    }
+
+    private static boolean startsWith(byte[] data, int offset, byte[] signature) {
+        if (data.length < offset + signature.length) {
+            return false;
+        }
+
+        for (int i = 0; i < signature.length; i++) {
+            if (data[offset + i] != signature[i]) {
+                return false;
+            }
+        }
+
+        return true;
     }
 }
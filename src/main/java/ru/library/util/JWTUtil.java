@@ -5,46 +5,99 @@ import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import ru.library.models.Role;
 
-import java.time.ZonedDateTime;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JWTUtil {
+    private static final String SUBJECT = "Details about user";
 
-    @Value("${jwt.secret}")
-    private String secret;
+    private final Algorithm algorithm;
+    private final JWTVerifier verifier;
+    private final String issuer;
+    private final Duration tokenTtl;
 
-    @Value("${jwt.issuer}")
-    private String issuer;
+    //Уже проверенные токены: ключ - сама строка токена, запись живет до exp токена.
+    //Хэш в качестве ключа стоил бы столько же, сколько HMAC, а строку токена DecodedJWT все равно хранит.
+    //Повторный запрос с тем же токеном не считает HMAC и не разбирает JSON
+    private final Cache<String, DecodedJWT> verifiedTokens;
 
-    Date expirationDate = Date.from(ZonedDateTime.now().plusMinutes(60).toInstant());
+    @Autowired
+    public JWTUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.issuer}") String issuer,
+                   @Value("${jwt.ttl:60m}") Duration tokenTtl,
+                   @Value("${jwt.cache.maximum-size:10000}") long cacheSize) {
+        this.algorithm = Algorithm.HMAC256(secret);
+        this.verifier = JWT.require(algorithm)
+                .withSubject(SUBJECT)
+                .withIssuer(issuer)
+                .build();
+        this.issuer = issuer;
+        this.tokenTtl = tokenTtl;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new Expiry<String, DecodedJWT>() {
+                    @Override
+                    public long expireAfterCreate(String key, DecodedJWT jwt, long currentTime) {
+                        return untilExpiry(jwt);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, DecodedJWT jwt, long currentTime, long currentDuration) {
+                        return untilExpiry(jwt);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, DecodedJWT jwt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    //Срок считается от момента выдачи каждого токена, а не один на все токены с момента старта приложения.
+    //jti нужен, чтобы отозвать один токен (logout), не трогая остальные токены человека
+    public String generateToken(Long personId, String username, Role role) {
+        Instant now = Instant.now();
 
-    public String generateToken(String username, Role role) {
         return JWT.create()
-                .withSubject("Details about user")
+                .withSubject(SUBJECT)
+                .withJWTId(UUID.randomUUID().toString())
+                .withClaim("id", personId)
                 .withClaim("username", username)
                 .withClaim("role", role.name())
-                .withIssuedAt(new Date())
+                .withIssuedAt(Date.from(now))
                 .withIssuer(issuer)
-                .withExpiresAt(expirationDate)
-                .sign(Algorithm.HMAC256(secret));
+                .withExpiresAt(Date.from(now.plus(tokenTtl)))
+                .sign(algorithm);
     }
 
     public DecodedJWT validateToken(String token) throws JWTVerificationException {
-        JWTVerifier jwtVerifier = JWT.require(Algorithm.HMAC256(secret))
-                .withSubject("Details about user")
-                .withIssuer(issuer)
-                .build();
+        DecodedJWT cached = verifiedTokens.getIfPresent(token);
+        if (cached != null) {
+            return cached;
+        }
 
-//        DecodedJWT verify = jwtVerifier.verify(token);
+        DecodedJWT decodedJWT = verifier.verify(token);
+        verifiedTokens.put(token, decodedJWT);
 
-//        return verify.getClaim("username").asString();
-
-        return jwtVerifier.verify(token);
+        return decodedJWT;
     }
 
+    private long untilExpiry(DecodedJWT jwt) {
+        Instant expiresAt = jwt.getExpiresAtAsInstant();
+        Duration remaining = expiresAt != null ? Duration.between(Instant.now(), expiresAt) : tokenTtl;
+
+        return Math.max(0, remaining.toNanos());
+    }
 }
@@ -0,0 +1,101 @@
+package ru.library.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.util.List;
+
+//Ответ с картинкой с поддержкой Range/206, If-Range, Accept-Ranges и Content-Length.
+//Тело никогда не собирается в byte[]: файлы уходят через sendfile, остальное копируется потоком небольшими буферами
+public class RangeUtil {
+
+    public static ResponseEntity<Resource> buildResponse(HttpServletRequest request, Resource resource, MediaType contentType,
+                                                         String eTag, long lastModified) throws IOException {
+        long length = resource.contentLength();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        List<HttpRange> ranges = requestedRanges(request, eTag, lastModified);
+
+        if (ranges.isEmpty()) {
+            headers.setContentLength(length);
+
+            if (SendfileUtil.sendFile(request, resource, 0, length)) {
+                return new ResponseEntity<>(headers, HttpStatus.OK);
+            }
+
+            //InputStreamResource, чтобы Spring не применил Range повторно, когда If-Range не совпал
+            return new ResponseEntity<>(new InputStreamResource(resource.getInputStream()), headers, HttpStatus.OK);
+        }
+
+        if (ranges.size() == 1 && SendfileUtil.isSupported(request, resource)) {
+            HttpRange range = ranges.get(0);
+            long start = range.getRangeStart(length);
+            long end = range.getRangeEnd(length);
+
+            if (start >= length || start > end) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return new ResponseEntity<>(headers, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            }
+
+            SendfileUtil.sendFile(request, resource, start, end + 1);
+
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            headers.setContentLength(end - start + 1);
+            return new ResponseEntity<>(headers, HttpStatus.PARTIAL_CONTENT);
+        }
+
+        //Несколько диапазонов или ресурс не файл: 206 (multipart/byteranges) или 416 формирует Spring по тому же заголовку Range
+        return new ResponseEntity<>(resource, headers, HttpStatus.OK);
+    }
+
+    //Пустой список - отдать картинку целиком: Range нет, он некорректен или If-Range указывает на старую версию
+    private static List<HttpRange> requestedRanges(HttpServletRequest request, String eTag, long lastModified) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+
+        if (rangeHeader == null) {
+            return List.of();
+        }
+
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+
+        if (ifRange != null && !ifRangeMatches(request, ifRange, eTag, lastModified)) {
+            return List.of();
+        }
+
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException ex) {
+            return List.of();
+        }
+    }
+
+    //If-Range сравнивается строго: слабый ETag или дата, не совпадающая с Last-Modified до секунды, не подходят
+    private static boolean ifRangeMatches(HttpServletRequest request, String ifRange, String eTag, long lastModified) {
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(eTag);
+        }
+
+        if (lastModified < 0) {
+            return false;
+        }
+
+        long ifRangeDate;
+        try {
+            ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+
+        return ifRangeDate / 1000 == lastModified / 1000;
+    }
+}
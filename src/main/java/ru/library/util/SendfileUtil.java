@@ -0,0 +1,32 @@
+package ru.library.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+
+//Отдача файла через sendfile Tomcat (FileChannel.transferTo): байты идут из page cache в сокет без копирования в heap.
+//Работает только для ресурсов-файлов и только если коннектор поддерживает sendfile (NIO/NIO2 на HTTP/1.1)
+public class SendfileUtil {
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    //end не включается: отдаются байты [start, end)
+    public static boolean sendFile(HttpServletRequest request, Resource resource, long start, long end) throws IOException {
+        if (!isSupported(request, resource)) {
+            return false;
+        }
+
+        request.setAttribute(SENDFILE_FILENAME, resource.getFile().getCanonicalPath());
+        request.setAttribute(SENDFILE_START, start);
+        request.setAttribute(SENDFILE_END, end);
+
+        return true;
+    }
+
+    public static boolean isSupported(HttpServletRequest request, Resource resource) {
+        return Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED)) && resource.isFile();
+    }
+}
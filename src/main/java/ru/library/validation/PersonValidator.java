@@ -1,40 +1,36 @@
 package ru.library.validation;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
+import ru.library.dto.PersonDTO;
 import ru.library.models.Person;
-import ru.library.security.PersonDetailsService;
+import ru.library.services.people_service.NameAvailabilityService;
 
 @Component
 public class PersonValidator implements Validator {
 
-    private final PersonDetailsService service;
+    private final NameAvailabilityService nameAvailabilityService;
 
     @Autowired
-    public PersonValidator(PersonDetailsService personDetailsService) {
-        this.service = personDetailsService;
+    public PersonValidator(NameAvailabilityService nameAvailabilityService) {
+        this.nameAvailabilityService = nameAvailabilityService;
     }
 
-    //Совпадает ли класс с тем классом, кот. мы пытаемся валидировать
+    //Совпадает ли класс с тем классом, кот. мы пытаемся валидировать.
+    //PersonDTO - чтобы регистрация проверяла имя до дорогого хеширования пароля
     @Override
     public boolean supports(Class<?> clazz) {
-        return Person.class.equals(clazz);
+        return Person.class.equals(clazz) || PersonDTO.class.equals(clazz);
     }
 
     @Override
     public void validate(Object target, Errors errors) {
-        Person person = (Person) target;
+        String name = target instanceof PersonDTO personDTO ? personDTO.getName() : ((Person) target).getName();
 
-        try {
-            service.loadUserByUsername(person.getName());
-        } catch (UsernameNotFoundException e) {
-            return;
+        if (nameAvailabilityService.isTaken(name)) {
+            errors.rejectValue("name", "name.taken", "User with such name already exists");
         }
-
-        errors.rejectValue("name", "User with such name already exists");
-
     }
 }
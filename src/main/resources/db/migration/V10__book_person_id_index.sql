@@ -0,0 +1,3 @@
+-- Книги по владельцу (одному или странице владельцев через IN): без индекса каждый такой запрос - полный проход по book.
+-- Частичный: свободные книги (person_id is null) в этих запросах не участвуют
+create index book_person_id_idx on book (person_id, book_id) where person_id is not null;
@@ -0,0 +1,8 @@
+-- Остальные индексы под запросы репозиториев (имя и владелец - V9, V10). Планы этих запросов проверяет QueryPlanTest
+
+create index if not exists book_status_idx on book (status);
+
+-- Удаленных мало, поэтому частичные индексы по id маленькие и сразу дают порядок для постраничной выдачи
+-- findDeletedViewsAfter и выборки findByRemovedAtNotNull
+create index if not exists person_removed_idx on person (id) where removed_at is not null;
+create index if not exists book_removed_idx on book (book_id) where removed_at is not null;
@@ -0,0 +1,3 @@
+-- Версия строки для оптимистической блокировки (@Version в Book). Переходы статуса одним UPDATE
+-- тоже увеличивают ее, поэтому сущность, прочитанная до перехода, не перезапишет его при сохранении
+alter table book add column if not exists version bigint not null default 0;
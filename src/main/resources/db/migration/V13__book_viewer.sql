@@ -0,0 +1,3 @@
+-- Кто сейчас смотрит обложку: повторный запрос того же читателя (продолжение загрузки по Range)
+-- не должен упираться в его же статус VIEWING_COVER. Внешнего ключа нет - это только метка просмотра
+alter table book add column if not exists viewer_id bigint;
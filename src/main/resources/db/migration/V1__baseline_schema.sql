@@ -1,3 +1,7 @@
+-- Исходная схема (бывший test.sql) на момент перехода на Flyway. Существующая база без flyway_schema_history
+-- при первом запуске помечается версией 1 (baseline-on-migrate в FlywayConfig) и получает V2+ -
+-- бывшие ручные скрипты migrations/001-009 и все последующие изменения
+
 CREATE TYPE role AS ENUM (
     'ROLE_ADMIN',
     'ROLE_USER'
@@ -18,13 +22,6 @@ create table Person
     role role
 );
 
-INSERT INTO Person (full_name, age, email, phone_number, password, role, created_at, created_person)
-VALUES
-    ('John Michael Doe', 25, 'johndoe@example.com', '+71234567890', 'password123', 'ROLE_USER', CURRENT_TIMESTAMP, 'ADMIN'),
-    ('Jane Elizabeth Smith', 30, 'janesmith@example.com', '+79876543210', 'password456', 'ROLE_ADMIN', CURRENT_TIMESTAMP, 'ADMIN');
-
-drop table Person;
-
 CREATE TYPE book_status AS ENUM (
     'FREE',
     'ASSIGNED',
@@ -49,10 +46,3 @@ create table Book
     person_id INTEGER REFERENCES person(id) on delete set null,
     status book_status
 );
-
-INSERT INTO Book (title, author, year_of_production, annotation, created_at, created_person, person_id, status)
-VALUES
-    ('To Kill a Mockingbird', 'Harper Lee', 1960, 'A classic novel about racial injustice', CURRENT_TIMESTAMP, 'ADMIN', 1, 'FREE'),
-    ('1984', 'George Orwell', 1949, 'A dystopian novel about totalitarianism', CURRENT_TIMESTAMP, 'ADMIN', 2, 'FREE');
-
-drop table Book;
\ No newline at end of file
@@ -0,0 +1,13 @@
+-- Переносит обложки из book.cover_image в отдельную таблицу book_cover
+create table book_cover
+(
+    book_id bigint primary key references book(book_id) on delete cascade,
+    image BYTEA
+);
+
+insert into book_cover (book_id, image)
+select book_id, cover_image
+from book
+where cover_image is not null and length(cover_image) > 0;
+
+alter table book drop column cover_image;
@@ -0,0 +1,4 @@
+-- Размер обложки хранится отдельной колонкой, чтобы индекс "есть обложка" строился без чтения bytea
+alter table book_cover add column cover_size INTEGER NOT NULL DEFAULT 0;
+
+update book_cover set cover_size = coalesce(octet_length(image), 0);
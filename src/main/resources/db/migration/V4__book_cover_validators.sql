@@ -0,0 +1,8 @@
+-- Хеш содержимого и время изменения обложки для ETag/Last-Modified
+alter table book_cover add column content_hash VARCHAR(64);
+alter table book_cover add column updated_at TIMESTAMP;
+
+update book_cover
+set content_hash = encode(sha256(image), 'hex'),
+    updated_at = CURRENT_TIMESTAMP
+where image is not null;
@@ -0,0 +1,11 @@
+-- Тип обложки определяется один раз при загрузке и хранится рядом с ней
+alter table book_cover add column content_type VARCHAR(32);
+
+update book_cover
+set content_type = case
+    when substring(image from 1 for 3) = '\xffd8ff'::bytea then 'image/jpeg'
+    when substring(image from 1 for 8) = '\x89504e470d0a1a0a'::bytea then 'image/png'
+    when substring(image from 1 for 6) in ('\x474946383761'::bytea, '\x474946383961'::bytea) then 'image/gif'
+    when substring(image from 1 for 4) = '\x52494646'::bytea and substring(image from 9 for 4) = '\x57454250'::bytea then 'image/webp'
+end
+where image is not null;
@@ -0,0 +1,13 @@
+-- Уменьшенные копии обложек (64 и 256 px по большей стороне) для сеток каталога.
+-- Для уже загруженных обложек копий нет - отдается оригинал, пока обложку не загрузят заново
+create table book_cover_variant
+(
+    book_id bigint references book_cover(book_id) on delete cascade,
+    variant_size INTEGER,
+    image BYTEA,
+    cover_size INTEGER NOT NULL DEFAULT 0,
+    content_hash VARCHAR(64),
+    content_type VARCHAR(32),
+    updated_at TIMESTAMP,
+    primary key (book_id, variant_size)
+);
@@ -0,0 +1,15 @@
+-- Очередь фоновой загрузки обложек: книга создается сразу, картинку по source_url скачивает пул воркеров.
+-- Частичный индекс покрывает только ожидающие задачи, которые периодически подбирает обход очереди
+create table cover_ingest_job
+(
+    book_id bigint primary key references book(book_id) on delete cascade,
+    source_url VARCHAR(2048) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error VARCHAR(500),
+    next_attempt_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+create index cover_ingest_job_due_idx on cover_ingest_job (next_attempt_at) where status = 'PENDING';
@@ -0,0 +1,14 @@
+-- Отозванные токены: jti - один токен (logout), без jti - все токены person_id, выданные не позже revoked_at.
+-- Приложение держит действующие записи в памяти и перечитывает их по расписанию, истекшие записи удаляются
+create table revoked_token
+(
+    id bigint generated by default as identity primary key,
+    jti VARCHAR(36),
+    person_id bigint,
+    revoked_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    CHECK (jti IS NOT NULL OR person_id IS NOT NULL)
+);
+
+create unique index revoked_token_jti_idx on revoked_token (jti) where jti is not null;
+create index revoked_token_expires_at_idx on revoked_token (expires_at);
@@ -0,0 +1,3 @@
+-- Имя - логин, поэтому уникально. Индекс обслуживает existsByName/findByName при регистрации и входе
+-- и закрывает гонку двух одновременных регистраций с одним именем
+create unique index person_full_name_idx on person (full_name);
@@ -0,0 +1,141 @@
+package ru.library.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.library.dto.BookView;
+import ru.library.dto.PersonView;
+import ru.library.mappers.BookMapper;
+import ru.library.mappers.PersonMapper;
+import ru.library.models.Person;
+import ru.library.models.Role;
+import ru.library.repositories.BookRepository;
+import ru.library.repositories.PeopleRepository;
+import ru.library.security.PasswordHashingExecutor;
+import ru.library.security.TokenRevocationService;
+import ru.library.services.admin_service.AdminService;
+import ru.library.services.book_service.BookService;
+import ru.library.services.cover_service.CoverIndex;
+import ru.library.services.cover_service.CoverIngestService;
+import ru.library.services.cover_service.CoverService;
+import ru.library.services.people_service.NameAvailabilityService;
+import ru.library.services.people_service.PeopleService;
+import ru.library.util.CursorUtil;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+//Все пути чтения из контроллеров (книга и человек, в том числе админские) идут через find*ViewById,
+//поэтому проверяем, что эти вызовы обслуживаются кешем и что записи сбрасывают именно свой id
+@SpringBootTest(classes = CacheConfigTest.TestConfig.class)
+class CacheConfigTest {
+    private static final long BOOK_ID = 7L;
+    private static final long PERSON_ID = 5L;
+
+    @Configuration
+    @EnableAspectJAutoProxy(proxyTargetClass = true)
+    @Import({CacheConfig.class, BookService.class, PeopleService.class, AdminService.class})
+    static class TestConfig {
+    }
+
+    @MockBean
+    private BookRepository bookRepository;
+    @MockBean
+    private PeopleRepository peopleRepository;
+    @MockBean
+    private BookMapper bookMapper;
+    @MockBean
+    private PersonMapper personMapper;
+    @MockBean
+    private CursorUtil cursorUtil;
+    @MockBean
+    private CoverIndex coverIndex;
+    @MockBean
+    private CoverService coverService;
+    @MockBean
+    private CoverIngestService coverIngestService;
+    @MockBean
+    private ObjectMapper objectMapper;
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+    @MockBean
+    private PasswordHashingExecutor passwordHashingExecutor;
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+    @MockBean
+    private NameAvailabilityService nameAvailabilityService;
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private PeopleService peopleService;
+    @Autowired
+    private AdminService adminService;
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        when(bookRepository.findViewById(BOOK_ID)).thenReturn(Optional.of(
+                new BookView(BOOK_ID, "Title", 2000, "Author", null, LocalDateTime.now())));
+        when(peopleRepository.findViewById(PERSON_ID)).thenReturn(Optional.of(
+                new PersonView(PERSON_ID, "Reader", 30, "reader@example.com", null, Role.ROLE_USER)));
+    }
+
+    @Test
+    void bookLookupsShareOneCacheEntryAcrossServices() {
+        BookView first = bookService.findBookViewById(BOOK_ID);
+        BookView second = bookService.findBookViewById(BOOK_ID);
+        BookView fromAdmin = adminService.findBookViewById(BOOK_ID);
+
+        assertEquals(first, second);
+        assertEquals(first, fromAdmin);
+        verify(bookRepository, times(1)).findViewById(BOOK_ID);
+    }
+
+    @Test
+    void personLookupsShareOneCacheEntryAcrossServices() {
+        PersonView first = peopleService.findPersonViewById(PERSON_ID);
+        PersonView fromAdmin = adminService.findPersonViewById(PERSON_ID);
+
+        assertEquals(first, fromAdmin);
+        verify(peopleRepository, times(1)).findViewById(PERSON_ID);
+    }
+
+    @Test
+    void bookWriteEvictsCachedView() {
+        when(bookRepository.freeIfAssigned(BOOK_ID)).thenReturn(1);
+        bookService.findBookViewById(BOOK_ID);
+
+        adminService.freeBook(BOOK_ID);
+        bookService.findBookViewById(BOOK_ID);
+
+        verify(bookRepository, times(2)).findViewById(BOOK_ID);
+    }
+
+    @Test
+    void personWriteEvictsCachedView() {
+        Person person = new Person();
+        person.setId(PERSON_ID);
+        when(peopleRepository.findById(PERSON_ID)).thenReturn(Optional.of(person));
+        peopleService.findPersonViewById(PERSON_ID);
+
+        adminService.softDeletePerson(PERSON_ID);
+        peopleService.findPersonViewById(PERSON_ID);
+
+        verify(peopleRepository, times(2)).findViewById(PERSON_ID);
+    }
+}
@@ -0,0 +1,81 @@
+package ru.library.config;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Миграции на двух базах: пустой (создается с нуля) и развернутой до Flyway - с исходной схемой, обложками
+//в book.cover_image и без flyway_schema_history, как ее настраивает FlywayConfig
+class FlywayMigrationTest {
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 1, 2, 3};
+
+    private static EmbeddedPostgres postgres;
+
+    @BeforeAll
+    static void start() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void migratesEmptyDatabase() {
+        DataSource dataSource = database("fresh");
+
+        flyway(dataSource).migrate();
+
+        assertEquals(0, new JdbcTemplate(dataSource).queryForObject("select count(*) from book_cover", Integer.class));
+    }
+
+    @Test
+    void upgradesDatabaseDeployedBeforeFlyway() throws IOException {
+        DataSource dataSource = database("deployed");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(new ClassPathResource("db/migration/V1__baseline_schema.sql").getContentAsString(StandardCharsets.UTF_8));
+        jdbcTemplate.update("insert into book (title, author, year_of_production, cover_image, status) " +
+                "values ('Dune', 'Frank Herbert', 1965, ?, 'FREE'::book_status)", (Object) JPEG);
+        jdbcTemplate.update("insert into book (title, author, year_of_production, status) " +
+                "values ('Emma', 'Jane Austen', 1815, 'FREE'::book_status)");
+
+        flyway(dataSource).migrate();
+
+        Map<String, Object> cover = jdbcTemplate.queryForMap(
+                "select c.cover_size, c.content_type, c.content_hash from book_cover c join book b using (book_id) where b.title = 'Dune'");
+        assertEquals(JPEG.length, cover.get("cover_size"));
+        assertEquals("image/jpeg", cover.get("content_type"));
+        assertNotNull(cover.get("content_hash"));
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from book_cover", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.columns where table_name = 'book' and column_name = 'cover_image'", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from revoked_token", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from cover_ingest_job", Integer.class));
+    }
+
+    private static Flyway flyway(DataSource dataSource) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+    }
+
+    private static DataSource database(String name) {
+        new JdbcTemplate(postgres.getPostgresDatabase()).execute("create database " + name);
+        return new DriverManagerDataSource(postgres.getJdbcUrl("postgres", name), "postgres", "postgres");
+    }
+}
@@ -0,0 +1,52 @@
+package ru.library.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.library.mappers.BookMapper;
+import ru.library.mappers.PersonMapper;
+import ru.library.repositories.BookRepository;
+import ru.library.repositories.PeopleRepository;
+import ru.library.security.PasswordHashingExecutor;
+import ru.library.security.TokenRevocationService;
+import ru.library.services.admin_service.AdminService;
+import ru.library.services.book_service.BookService;
+import ru.library.services.cover_service.CoverIndex;
+import ru.library.services.cover_service.CoverIngestService;
+import ru.library.services.cover_service.CoverService;
+import ru.library.services.people_service.NameAvailabilityService;
+import ru.library.util.CursorUtil;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class AdminControllerPersonsBooksTest {
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final AdminService adminService = new AdminService(mock(BookService.class), mock(PeopleRepository.class), bookRepository,
+            mock(BookMapper.class), mock(PersonMapper.class), mock(PasswordHashingExecutor.class), mock(CursorUtil.class),
+            mock(CoverIndex.class), mock(CoverService.class), mock(CoverIngestService.class), mock(TokenRevocationService.class),
+            mock(NameAvailabilityService.class));
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new AdminController(adminService)).build();
+
+    @Test
+    void emptyIdIsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/admin/personsBooks").param("ids", "1,,2"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Person ids must not be empty"));
+
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void keysFollowRequestedOrder() throws Exception {
+        when(bookRepository.findOwnedViewsByPersonIds(any())).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/admin/personsBooks").param("ids", "3,1,2"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"3\":[],\"1\":[],\"2\":[]}"));
+    }
+}
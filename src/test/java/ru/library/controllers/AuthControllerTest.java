@@ -0,0 +1,75 @@
+package ru.library.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.library.exceptions.auth_exp.PasswordHashingRejectedException;
+import ru.library.models.Person;
+import ru.library.repositories.PeopleRepository;
+import ru.library.security.PasswordHashingExecutor;
+import ru.library.security.TokenRevocationService;
+import ru.library.services.admin_service.AdminService;
+import ru.library.services.people_service.NameAvailabilityService;
+import ru.library.util.JWTUtil;
+import ru.library.validation.PersonValidator;
+
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class AuthControllerTest {
+    private final AdminService adminService = mock(AdminService.class);
+    private final PasswordHashingExecutor passwordHashingExecutor = mock(PasswordHashingExecutor.class);
+    private final PeopleRepository peopleRepository = mock(PeopleRepository.class);
+    private final NameAvailabilityService nameAvailabilityService = new NameAvailabilityService(peopleRepository, 1000);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new AuthController(adminService, mock(JWTUtil.class),
+            mock(PersonValidator.class), mock(AuthenticationManager.class), passwordHashingExecutor,
+            mock(TokenRevocationService.class), nameAvailabilityService)).build();
+
+    @Test
+    void availabilityChecksDatabaseWhenFilterSaysMaybe() throws Exception {
+        when(peopleRepository.count()).thenReturn(1L);
+        when(peopleRepository.streamAllNames()).thenReturn(Stream.of("Former Reader"));
+        nameAvailabilityService.rebuild();
+        when(peopleRepository.existsByName("Former Reader")).thenReturn(false);
+
+        mockMvc.perform(get("/auth/availability").param("name", "Former Reader"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Former Reader"))
+                .andExpect(jsonPath("$.available").value(true));
+
+        verify(peopleRepository).existsByName("Former Reader");
+    }
+
+    @Test
+    void loginAnswers503WithRetryAfterWhenHashingQueueIsFull() throws Exception {
+        when(passwordHashingExecutor.submit(any())).thenThrow(new PasswordHashingRejectedException("busy", 3));
+
+        mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Reader\",\"password\":\"secret\"}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"))
+                .andExpect(jsonPath("$.message").value("busy"));
+    }
+
+    @Test
+    void registrationAnswers503WithRetryAfterWhenHashingQueueIsFull() throws Exception {
+        when(adminService.convertPersonDTOToPerson(any())).thenThrow(new PasswordHashingRejectedException("busy", 5));
+
+        mockMvc.perform(post("/auth/registration")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Reader\",\"age\":30,\"email\":\"reader@example.com\",\"password\":\"secret\"}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"));
+
+        verify(adminService, never()).save(any(Person.class));
+    }
+}
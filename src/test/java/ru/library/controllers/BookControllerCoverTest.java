@@ -0,0 +1,101 @@
+package ru.library.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.library.dto.BookCoverView;
+import ru.library.models.CoverSize;
+import ru.library.services.book_service.BookService;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class BookControllerCoverTest {
+    private static final long BOOK_ID = 7L;
+    private static final long PERSON_ID = 3L;
+    private static final byte[] IMAGE = "0123456789abcdefghij".getBytes();
+
+    private final BookService bookService = mock(BookService.class);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new BookController(bookService)).build();
+
+    private final BookCoverView cover = new BookCoverView(BOOK_ID, IMAGE.length, "abc123", "image/jpeg",
+            LocalDateTime.of(2024, 5, 1, 12, 0));
+
+    @BeforeEach
+    void setUp() {
+        when(bookService.findCoverViewById(BOOK_ID, CoverSize.ORIGINAL)).thenReturn(cover);
+        when(bookService.getCoverImage(cover, CoverSize.ORIGINAL)).thenAnswer(invocation -> new ByteArrayResource(IMAGE));
+    }
+
+    @Test
+    void unchangedCoverPollIsNotModifiedWithoutStatusChange() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/books/{id}/coverImage", BOOK_ID).param("personId", String.valueOf(PERSON_ID)))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(IMAGE))
+                .andReturn();
+
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals("\"c-abc123\"", eTag);
+
+        mockMvc.perform(get("/api/books/{id}/coverImage", BOOK_ID).param("personId", String.valueOf(PERSON_ID))
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        verify(bookService, times(1)).viewBookCover(BOOK_ID, PERSON_ID);
+        verify(bookService, times(1)).getCoverImage(cover, CoverSize.ORIGINAL);
+    }
+
+    @Test
+    void staleETagGetsTheImageAgain() throws Exception {
+        mockMvc.perform(get("/api/books/{id}/coverImage", BOOK_ID).param("personId", String.valueOf(PERSON_ID))
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"c-old\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(IMAGE));
+
+        verify(bookService).viewBookCover(anyLong(), anyLong());
+    }
+
+    @Test
+    void missingImageBytesDoNotChangeStatus() throws Exception {
+        when(bookService.getCoverImage(any(), any())).thenReturn(null);
+
+        mockMvc.perform(get("/api/books/{id}/coverImage", BOOK_ID).param("personId", String.valueOf(PERSON_ID)))
+                .andExpect(status().isNotFound());
+
+        verify(bookService, never()).viewBookCover(anyLong(), anyLong());
+    }
+
+    @Test
+    void invalidSizeIsRejectedBeforeStatusChange() throws Exception {
+        mockMvc.perform(get("/api/books/{id}/coverImage", BOOK_ID).param("personId", String.valueOf(PERSON_ID)).param("size", "999"))
+                .andExpect(status().isBadRequest());
+
+        verify(bookService, never()).findCoverViewById(anyLong(), any());
+        verify(bookService, never()).viewBookCover(anyLong(), anyLong());
+    }
+
+    @Test
+    void bookWithoutCoverIsNotFoundWithoutStatusChange() throws Exception {
+        when(bookService.findCoverViewById(BOOK_ID, CoverSize.SMALL)).thenReturn(null);
+        when(bookService.findCoverViewById(BOOK_ID, CoverSize.MEDIUM))
+                .thenReturn(new BookCoverView(BOOK_ID, 0, null, null, null));
+
+        mockMvc.perform(get("/api/books/{id}/coverImage", BOOK_ID).param("personId", String.valueOf(PERSON_ID)).param("size", "64"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/books/{id}/coverImage", BOOK_ID).param("personId", String.valueOf(PERSON_ID)).param("size", "256"))
+                .andExpect(status().isNotFound());
+
+        verify(bookService, never()).viewBookCover(anyLong(), anyLong());
+    }
+}
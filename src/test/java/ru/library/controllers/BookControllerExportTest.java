@@ -0,0 +1,89 @@
+package ru.library.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.library.dto.BookView;
+import ru.library.mappers.BookMapper;
+import ru.library.repositories.BookRepository;
+import ru.library.services.book_service.BookService;
+import ru.library.services.cover_service.CoverIndex;
+import ru.library.services.cover_service.CoverService;
+import ru.library.util.CursorUtil;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class BookControllerExportTest {
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final BookService bookService = new BookService(bookRepository, mock(BookMapper.class), mock(CursorUtil.class),
+            mock(CoverIndex.class), mock(CoverService.class), objectMapper);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new BookController(bookService)).build();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bookService, "exportFlushEvery", 2);
+    }
+
+    @Test
+    void exportsOneJsonObjectPerLine() throws Exception {
+        List<BookView> books = IntStream.rangeClosed(1, 5)
+                .mapToObj(i -> new BookView((long) i, "Book " + i, 2000 + i, "Author " + i, null, LocalDateTime.of(2024, 1, i, 12, 0)))
+                .toList();
+        when(bookRepository.streamAllViews()).thenReturn(books.stream());
+
+        String body = export();
+
+        String[] lines = body.split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(body.endsWith("\n"));
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode book = objectMapper.readTree(lines[i]);
+            assertTrue(book.isObject());
+            assertEquals(i + 1, book.get("bookId").asLong());
+            assertEquals("Book " + (i + 1), book.get("title").asText());
+        }
+    }
+
+    @Test
+    void exportsEmptyCatalogAsEmptyBody() throws Exception {
+        when(bookRepository.streamAllViews()).thenReturn(Stream.empty());
+
+        assertEquals("", export());
+    }
+
+    @Test
+    void rejectsZeroFlushIntervalAtStartup() {
+        ReflectionTestUtils.setField(bookService, "exportFlushEvery", 0);
+
+        assertThrows(IllegalStateException.class, bookService::validateExportFlushEvery);
+    }
+
+    private String export() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+    }
+}
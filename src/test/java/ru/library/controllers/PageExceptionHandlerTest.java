@@ -0,0 +1,46 @@
+package ru.library.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.library.exceptions.page_exp.InvalidCursorException;
+import ru.library.services.admin_service.AdminService;
+import ru.library.services.book_service.BookService;
+import ru.library.services.people_service.PeopleService;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//Битый курсор на любом постраничном эндпоинте дает 400 из общего PageExceptionHandler
+class PageExceptionHandlerTest {
+    private static final String BAD_CURSOR = "bad";
+
+    private final BookService bookService = mock(BookService.class);
+    private final PeopleService peopleService = mock(PeopleService.class);
+    private final AdminService adminService = mock(AdminService.class);
+
+    private final MockMvc mockMvc = MockMvcBuilders
+            .standaloneSetup(new BookController(bookService), new PeopleController(peopleService), new AdminController(adminService))
+            .setControllerAdvice(new PageExceptionHandler())
+            .build();
+
+    @Test
+    void malformedCursorIsBadRequestOnEveryPagedEndpoint() throws Exception {
+        InvalidCursorException invalidCursor = new InvalidCursorException("Invalid cursor: " + BAD_CURSOR);
+        when(bookService.getBooksPage(eq(BAD_CURSOR), any())).thenThrow(invalidCursor);
+        when(peopleService.getPeoplePage(eq(BAD_CURSOR), any())).thenThrow(invalidCursor);
+        when(adminService.getDeletedBooksPage(eq(BAD_CURSOR), any())).thenThrow(invalidCursor);
+        when(adminService.getDeletedPeoplePage(eq(BAD_CURSOR), any())).thenThrow(invalidCursor);
+
+        for (String path : new String[]{"/api/books", "/api/people", "/api/admin/deleted/books", "/api/admin/deleted/people"}) {
+            mockMvc.perform(get(path).param("cursor", BAD_CURSOR))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Invalid cursor: " + BAD_CURSOR));
+        }
+    }
+}
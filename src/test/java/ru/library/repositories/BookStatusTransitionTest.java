@@ -0,0 +1,151 @@
+package ru.library.repositories;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.library.exceptions.book_exp.BookNotFoundException;
+import ru.library.exceptions.book_exp.BookStatusConflictException;
+import ru.library.mappers.BookMapper;
+import ru.library.services.book_service.BookService;
+import ru.library.services.cover_service.CoverIndex;
+import ru.library.services.cover_service.CoverService;
+import ru.library.util.CursorUtil;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+//Условные UPDATE переходов статуса на настоящей схеме из миграций Flyway. Каждый тест в своей транзакции с откатом
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=none")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class BookStatusTransitionTest extends EmbeddedPostgresTest {
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void secondAssignUpdatesNoRowsAndIsConflict() {
+        long bookId = insertBook("FREE");
+        long firstReader = insertPerson("First Test Reader");
+        long secondReader = insertPerson("Second Test Reader");
+
+        assertEquals(1, bookRepository.assignIfFree(bookId, firstReader));
+        assertEquals(0, bookRepository.assignIfFree(bookId, secondReader));
+        assertEquals(firstReader, owner(bookId));
+
+        assertThrows(BookStatusConflictException.class,
+                () -> bookService().requireTransition(0, bookId, "Book is already assigned to a person"));
+    }
+
+    @Test
+    void secondFreeIsConflict() {
+        long bookId = insertBook("FREE");
+        bookRepository.assignIfFree(bookId, insertPerson("First Test Reader"));
+
+        bookService().freeBook(bookId);
+
+        assertEquals("FREE", status(bookId));
+        assertNull(owner(bookId));
+        assertEquals(0, bookRepository.freeIfAssigned(bookId));
+        assertThrows(BookStatusConflictException.class, () -> bookService().freeBook(bookId));
+    }
+
+    @Test
+    void secondContentViewIsConflict() {
+        long bookId = insertBook("FREE");
+
+        bookService().viewBookContent(bookId, 5L);
+
+        assertEquals("VIEWING_CONTENT", status(bookId));
+        assertThrows(BookStatusConflictException.class, () -> bookService().viewBookContent(bookId, 6L));
+    }
+
+    @Test
+    void transitionOfMissingBookIsNotFound() {
+        long missingId = insertBook("FREE") + 1000;
+
+        assertEquals(0, bookRepository.freeIfAssigned(missingId));
+        assertThrows(BookNotFoundException.class, () -> bookService().freeBook(missingId));
+        assertThrows(BookNotFoundException.class, () -> bookService().viewBookCover(missingId, 5L));
+        assertThrows(BookNotFoundException.class, () -> bookService().releaseBookAfterViewing(missingId));
+    }
+
+    @Test
+    void transitionBumpsVersion() {
+        long bookId = insertBook("FREE");
+        long before = version(bookId);
+
+        bookRepository.viewContentIfFree(bookId);
+        bookRepository.releaseIfViewing(bookId);
+
+        assertEquals(before + 2, version(bookId));
+    }
+
+    @Test
+    void sameViewerCanRequestCoverAgainWhileViewing() {
+        long bookId = insertBook("FREE");
+
+        assertEquals(1, bookRepository.viewCoverIfAvailable(bookId, 5L));
+        assertEquals(1, bookRepository.viewCoverIfAvailable(bookId, 5L));
+        assertEquals("VIEWING_COVER", status(bookId));
+        assertEquals(5L, viewer(bookId));
+    }
+
+    @Test
+    void otherViewerCannotTakeCoverBeingViewed() {
+        long bookId = insertBook("FREE");
+
+        assertEquals(1, bookRepository.viewCoverIfAvailable(bookId, 5L));
+        assertEquals(0, bookRepository.viewCoverIfAvailable(bookId, 6L));
+        assertEquals(5L, viewer(bookId));
+    }
+
+    @Test
+    void releaseClearsViewer() {
+        long bookId = insertBook("FREE");
+        bookRepository.viewCoverIfAvailable(bookId, 5L);
+
+        assertEquals(1, bookRepository.releaseIfViewing(bookId));
+        assertEquals("FREE", status(bookId));
+        assertNull(viewer(bookId));
+        assertEquals(1, bookRepository.viewCoverIfAvailable(bookId, 6L));
+    }
+
+    private long insertBook(String status) {
+        return jdbcTemplate.queryForObject(
+                "insert into book (title, author, year_of_production, annotation, status) " +
+                        "values ('Dune', 'Frank Herbert', 1965, 'Spice', ?::book_status) returning book_id",
+                Long.class, status);
+    }
+
+    private long insertPerson(String name) {
+        return jdbcTemplate.queryForObject(
+                "insert into person (full_name, age, role) values (?, 30, 'ROLE_USER') returning id",
+                Long.class, name);
+    }
+
+    //requireTransition и переходы сервиса используют только репозиторий
+    private BookService bookService() {
+        return new BookService(bookRepository, mock(BookMapper.class), mock(CursorUtil.class), mock(CoverIndex.class),
+                mock(CoverService.class), mock(ObjectMapper.class));
+    }
+
+    private String status(long bookId) {
+        return jdbcTemplate.queryForObject("select status::text from book where book_id = ?", String.class, bookId);
+    }
+
+    private Long owner(long bookId) {
+        return jdbcTemplate.queryForObject("select person_id from book where book_id = ?", Long.class, bookId);
+    }
+
+    private long version(long bookId) {
+        return jdbcTemplate.queryForObject("select version from book where book_id = ?", Long.class, bookId);
+    }
+
+    private Long viewer(long bookId) {
+        return jdbcTemplate.queryForObject("select viewer_id from book where book_id = ?", Long.class, bookId);
+    }
+}
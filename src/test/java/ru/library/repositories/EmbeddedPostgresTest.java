@@ -0,0 +1,50 @@
+package ru.library.repositories;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Общий встроенный PostgreSQL 16 для тестов на настоящей схеме из миграций Flyway: статусы и роли - enum PostgreSQL,
+//поэтому H2 здесь не подходит. Процесс один на все тесты, а каждый Spring-контекст получает свою пустую базу,
+//чтобы данные одного теста (например, засев QueryPlanTest) не влияли на другой
+public abstract class EmbeddedPostgresTest {
+    protected static final EmbeddedPostgres POSTGRES = startPostgres();
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    //Вызывается при сборке каждого контекста; закешированный контекст использует уже созданную базу
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        String url = POSTGRES.getJdbcUrl("postgres", createDatabase());
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> "postgres");
+    }
+
+    private static String createDatabase() {
+        String name = "test_" + DATABASES.incrementAndGet();
+
+        try (Connection connection = POSTGRES.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("create database " + name);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to create test database " + name, e);
+        }
+
+        return name;
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package ru.library.repositories;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Схема - из миграций Flyway, данные - query-plan-seed.sql. Для каждого горячего запроса берется SQL, который
+//реально сгенерировал Hibernate, и строится его общий план (EXPLAIN GENERIC_PLAN, PostgreSQL 16+).
+//enable_seqscan = off: планировщик берет любой подходящий индекс, поэтому Seq Scan в плане значит, что индекса,
+//который обслужил бы запрос, нет - запрос изменили или индекс удалили
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=ru.library.repositories.QueryPlanTest$CapturingStatementInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Sql(scripts = "/query-plan-seed.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest extends EmbeddedPostgresTest {
+    @Value("${spring.datasource.url}")
+    private String datasourceUrl;
+
+    @Autowired
+    private PeopleRepository peopleRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BookCoverRepository bookCoverRepository;
+    @Autowired
+    private BookCoverVariantRepository bookCoverVariantRepository;
+    @Autowired
+    private CoverIngestJobRepository coverIngestJobRepository;
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    //Полные выгрузки (streamAll*) и пакетные обходы при старте/миграции читают всю таблицу намеренно и сюда не входят
+    Stream<Arguments> hotQueries() {
+        List<Long> pageOfPeople = LongStream.rangeClosed(1, 50).boxed().toList();
+
+        return Stream.of(
+                query("PeopleRepository.findByName", () -> peopleRepository.findByName("Reader bcd Test")),
+                query("PeopleRepository.existsByName", () -> peopleRepository.existsByName("Reader bcd Test")),
+                query("PeopleRepository.findById", () -> peopleRepository.findById(123L)),
+                query("PeopleRepository.findViewById", () -> peopleRepository.findViewById(123L)),
+                query("PeopleRepository.findViewsAfter", () -> peopleRepository.findViewsAfter(1000L, Limit.of(21))),
+                query("PeopleRepository.findDeletedViewsAfter", () -> peopleRepository.findDeletedViewsAfter(1000L, Limit.of(21))),
+                query("PeopleRepository.findByRemovedAtNotNull", () -> peopleRepository.findByRemovedAtNotNull()),
+                query("BookRepository.findViewById", () -> bookRepository.findViewById(123L)),
+                query("BookRepository.findViewsAfter", () -> bookRepository.findViewsAfter(1000L, Limit.of(21))),
+                query("BookRepository.findDeletedViewsAfter", () -> bookRepository.findDeletedViewsAfter(1000L, Limit.of(21))),
+                query("BookRepository.findByRemovedAtNotNull", () -> bookRepository.findByRemovedAtNotNull()),
+                query("BookRepository.findOwnedViewsByPersonId", () -> bookRepository.findOwnedViewsByPersonId(123L)),
+                query("BookRepository.findOwnedViewsByPersonIds", () -> bookRepository.findOwnedViewsByPersonIds(pageOfPeople)),
+                query("BookCoverRepository.findViewById", () -> bookCoverRepository.findViewById(124L)),
+                query("BookCoverVariantRepository.findViewById", () -> bookCoverVariantRepository.findViewById(127L, 64)),
+                query("CoverIngestJobRepository.findDuePendingBookIds", () -> coverIngestJobRepository.findDuePendingBookIds(LocalDateTime.now(), Limit.of(100))),
+                query("RevokedTokenRepository.findByExpiresAtAfter", () -> revokedTokenRepository.findByExpiresAtAfter(LocalDateTime.now()))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    void hotQueryUsesIndex(String name, Runnable repositoryCall) throws SQLException {
+        CapturingStatementInspector.STATEMENTS.clear();
+        repositoryCall.run();
+
+        assertFalse(CapturingStatementInspector.STATEMENTS.isEmpty(), name + " did not reach the database");
+
+        String sql = CapturingStatementInspector.STATEMENTS.get(0);
+        String plan = explain(sql);
+
+        assertFalse(plan.contains("Seq Scan"), name + " regressed to a sequential scan:\n" + sql + "\n" + plan);
+    }
+
+    //Отдельное соединение в simple query protocol: в extended драйвер сам связывает $n с параметрами, которых у EXPLAIN нет
+    private String explain(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(datasourceUrl + "&preferQueryMode=simple");
+             Statement statement = connection.createStatement()) {
+            statement.execute("set enable_seqscan = off");
+
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = statement.executeQuery("explain (generic_plan) " + numberParameters(sql))) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+
+            return plan.toString();
+        }
+    }
+
+    //JDBC-плейсхолдеры ? в нумерованные $1..$n, которые понимает EXPLAIN
+    private static String numberParameters(String sql) {
+        StringBuilder numbered = new StringBuilder();
+        int parameter = 0;
+
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+
+        return numbered.toString();
+    }
+
+    private static Arguments query(String name, Runnable repositoryCall) {
+        return Arguments.of(name, repositoryCall);
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
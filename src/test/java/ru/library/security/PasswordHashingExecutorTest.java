@@ -0,0 +1,67 @@
+package ru.library.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.library.exceptions.auth_exp.PasswordHashingRejectedException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+    private final CostAwarePasswordEncoder passwordEncoder = new CostAwarePasswordEncoder(4);
+    private final PasswordHashingExecutor executor = new PasswordHashingExecutor(passwordEncoder, 4, 1, 1, 7);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void rejectsWithRetryAfterWhenQueueIsFull() throws InterruptedException {
+        fillPoolAndQueue();
+
+        PasswordHashingRejectedException ex = assertThrows(PasswordHashingRejectedException.class,
+                () -> executor.submit(() -> "third"));
+
+        assertEquals(7, ex.getRetryAfterSeconds());
+        assertEquals(1, executor.getStats().getRejectedCount());
+    }
+
+    @Test
+    void blockingEncodeIsRejectedTheSameWay() throws InterruptedException {
+        fillPoolAndQueue();
+
+        assertThrows(PasswordHashingRejectedException.class, () -> executor.encode("password"));
+    }
+
+    @Test
+    void encodesInPool() {
+        String hash = executor.encode("password");
+
+        assertTrue(passwordEncoder.matches("password", hash));
+    }
+
+    //Единственный поток занят, единственное место в очереди тоже
+    private void fillPoolAndQueue() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit(() -> {
+            started.countDown();
+            awaitRelease();
+            return "first";
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.submit(() -> "second");
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package ru.library.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.annotation.Scheduled;
+import ru.library.models.RevokedToken;
+import ru.library.repositories.RevokedTokenRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TokenRevocationServiceTest {
+    private static final Algorithm ALGORITHM = Algorithm.HMAC256("test-secret");
+
+    private final RevokedTokenRepository revokedTokenRepository = mock(RevokedTokenRepository.class);
+    private final TokenRevocationService service = new TokenRevocationService(revokedTokenRepository, Duration.ofHours(1), 100);
+
+    @Test
+    void logoutRevokesOnlyThatToken() {
+        DecodedJWT loggedOut = token(1L, UUID.randomUUID().toString(), Instant.now());
+        DecodedJWT otherSession = token(1L, UUID.randomUUID().toString(), Instant.now());
+
+        service.revokeToken(loggedOut);
+
+        assertTrue(service.isRevoked(loggedOut));
+        assertFalse(service.isRevoked(otherSession));
+        verify(revokedTokenRepository).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void tokenWithoutJtiRevokesAllTokensOfOwner() {
+        DecodedJWT legacy = token(1L, null, Instant.now().minusSeconds(5));
+        DecodedJWT otherSession = token(1L, UUID.randomUUID().toString(), Instant.now().minusSeconds(5));
+
+        service.revokeToken(legacy);
+
+        assertTrue(service.isRevoked(legacy));
+        assertTrue(service.isRevoked(otherSession));
+    }
+
+    @Test
+    void revokePersonRejectsTokensIssuedUpToSameSecond() {
+        DecodedJWT earlier = token(1L, UUID.randomUUID().toString(), Instant.now().minusSeconds(60));
+        DecodedJWT sameSecond = token(1L, UUID.randomUUID().toString(), Instant.now());
+        DecodedJWT otherPerson = token(2L, UUID.randomUUID().toString(), Instant.now().minusSeconds(60));
+
+        service.revokePerson(1L);
+
+        assertTrue(service.isRevoked(earlier));
+        assertTrue(service.isRevoked(sameSecond));
+        assertFalse(service.isRevoked(otherPerson));
+        //Токен, выданный после отзыва (новый вход), снова действует
+        assertFalse(service.isRevoked(token(1L, UUID.randomUUID().toString(), Instant.now().plusSeconds(2))));
+    }
+
+    @Test
+    void refreshPicksUpRevocationsFromOtherInstances() {
+        DecodedJWT revokedElsewhere = token(1L, UUID.randomUUID().toString(), Instant.now());
+        DecodedJWT personRevokedElsewhere = token(2L, UUID.randomUUID().toString(), Instant.now().minusSeconds(60));
+        when(revokedTokenRepository.findByExpiresAtAfter(any())).thenReturn(List.of(
+                revocation(revokedElsewhere.getId(), 1L, LocalDateTime.now()),
+                revocation(null, 2L, LocalDateTime.now())
+        ));
+
+        assertFalse(service.isRevoked(revokedElsewhere));
+
+        service.refresh();
+
+        assertTrue(service.isRevoked(revokedElsewhere));
+        assertTrue(service.isRevoked(personRevokedElsewhere));
+        verify(revokedTokenRepository).deleteExpired(any());
+    }
+
+    @Test
+    void refreshKeepsOwnRecentRevocationsMissingFromSnapshotQuery() {
+        DecodedJWT loggedOut = token(1L, UUID.randomUUID().toString(), Instant.now());
+        when(revokedTokenRepository.findByExpiresAtAfter(any())).thenReturn(List.of());
+
+        service.revokeToken(loggedOut);
+        service.refresh();
+
+        assertTrue(service.isRevoked(loggedOut));
+    }
+
+    @Test
+    void refreshDropsRevocationsPurgedFromDatabase() {
+        DecodedJWT revokedElsewhere = token(1L, UUID.randomUUID().toString(), Instant.now());
+        when(revokedTokenRepository.findByExpiresAtAfter(any()))
+                .thenReturn(List.of(revocation(revokedElsewhere.getId(), 1L, LocalDateTime.now())))
+                .thenReturn(List.of());
+
+        service.refresh();
+        assertTrue(service.isRevoked(revokedElsewhere));
+
+        service.refresh();
+        assertFalse(service.isRevoked(revokedElsewhere));
+    }
+
+    //Фильтр на одну запись после сотни вставок отвечает "возможно" почти на все - решает точное множество
+    @Test
+    void bloomFalsePositivesFallBackToExactJtiSet() {
+        TokenRevocationService undersized = new TokenRevocationService(revokedTokenRepository, Duration.ofHours(1), 1);
+        List<DecodedJWT> revoked = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            DecodedJWT jwt = token(1L, UUID.randomUUID().toString(), Instant.now().plusSeconds(10));
+            undersized.revokeToken(jwt);
+            revoked.add(jwt);
+        }
+
+        revoked.forEach(jwt -> assertTrue(undersized.isRevoked(jwt)));
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(undersized.isRevoked(token(1L, UUID.randomUUID().toString(), Instant.now().plusSeconds(10))));
+        }
+    }
+
+    @Test
+    void refreshRunsEveryThirtySecondsByDefault() throws NoSuchMethodException {
+        Scheduled scheduled = TokenRevocationService.class.getMethod("refresh").getAnnotation(Scheduled.class);
+
+        assertEquals("${library.security.revocation.refresh-ms:30000}", scheduled.fixedDelayString());
+    }
+
+    private static DecodedJWT token(Long personId, String jti, Instant issuedAt) {
+        JWTCreator.Builder builder = JWT.create()
+                .withClaim("id", personId)
+                .withIssuedAt(Date.from(issuedAt.truncatedTo(ChronoUnit.SECONDS)))
+                .withExpiresAt(Date.from(issuedAt.plus(Duration.ofHours(1))));
+        if (jti != null) {
+            builder.withJWTId(jti);
+        }
+        return JWT.decode(builder.sign(ALGORITHM));
+    }
+
+    private static RevokedToken revocation(String jti, Long personId, LocalDateTime revokedAt) {
+        RevokedToken revocation = new RevokedToken();
+        revocation.setJti(jti);
+        revocation.setPersonId(personId);
+        revocation.setRevokedAt(revokedAt);
+        revocation.setExpiresAt(revokedAt.plusHours(1));
+        return revocation;
+    }
+}
@@ -0,0 +1,128 @@
+package ru.library.services.admin_service;
+
+import org.junit.jupiter.api.Test;
+import ru.library.dto.BookDTO;
+import ru.library.dto.OwnedBookView;
+import ru.library.exceptions.person_exp.InvalidPersonIdsException;
+import ru.library.mappers.BookMapper;
+import ru.library.mappers.PersonMapper;
+import ru.library.models.Person;
+import ru.library.models.Role;
+import ru.library.repositories.BookRepository;
+import ru.library.repositories.PeopleRepository;
+import ru.library.security.PasswordHashingExecutor;
+import ru.library.security.TokenRevocationService;
+import ru.library.services.book_service.BookService;
+import ru.library.services.cover_service.CoverIndex;
+import ru.library.services.cover_service.CoverIngestService;
+import ru.library.services.cover_service.CoverService;
+import ru.library.services.people_service.NameAvailabilityService;
+import ru.library.util.CursorUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class AdminServiceTest {
+    private static final long PERSON_ID = 5L;
+
+    private final PeopleRepository peopleRepository = mock(PeopleRepository.class);
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final TokenRevocationService tokenRevocationService = mock(TokenRevocationService.class);
+    private final BookService bookService = mock(BookService.class);
+    private final AdminService adminService = new AdminService(bookService, peopleRepository, bookRepository,
+            mock(BookMapper.class), mock(PersonMapper.class), mock(PasswordHashingExecutor.class), mock(CursorUtil.class),
+            mock(CoverIndex.class), mock(CoverService.class), mock(CoverIngestService.class), tokenRevocationService,
+            mock(NameAvailabilityService.class));
+
+    @Test
+    void updateRevokesTokensWhenRoleChanges() {
+        when(peopleRepository.findById(PERSON_ID)).thenReturn(Optional.of(person("Reader", Role.ROLE_USER)));
+
+        adminService.update(person("Reader", Role.ROLE_ADMIN), PERSON_ID);
+
+        verify(tokenRevocationService).revokePerson(PERSON_ID);
+    }
+
+    @Test
+    void updateRevokesTokensWhenNameChanges() {
+        when(peopleRepository.findById(PERSON_ID)).thenReturn(Optional.of(person("Reader", Role.ROLE_USER)));
+
+        adminService.update(person("Renamed Reader", Role.ROLE_USER), PERSON_ID);
+
+        verify(tokenRevocationService).revokePerson(PERSON_ID);
+    }
+
+    @Test
+    void updateKeepsTokensWhenClaimsAreUnchanged() {
+        when(peopleRepository.findById(PERSON_ID)).thenReturn(Optional.of(person("Reader", Role.ROLE_USER)));
+
+        adminService.update(person("Reader", Role.ROLE_USER), PERSON_ID);
+
+        verify(tokenRevocationService, never()).revokePerson(anyLong());
+    }
+
+    @Test
+    void softDeleteRevokesTokens() {
+        Person stored = person("Reader", Role.ROLE_USER);
+        when(peopleRepository.findById(PERSON_ID)).thenReturn(Optional.of(stored));
+
+        adminService.softDeletePerson(PERSON_ID);
+
+        assertNotNull(stored.getRemovedAt());
+        verify(tokenRevocationService).revokePerson(PERSON_ID);
+    }
+
+    @Test
+    void getBooksByPersonIdsRejectsEmptyId() {
+        assertThrows(InvalidPersonIdsException.class, () -> adminService.getBooksByPersonIds(Arrays.asList(1L, null, 2L)));
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void getBooksByPersonIdsAcceptsAtMostHundredIds() {
+        List<Long> hundred = LongStream.rangeClosed(1, 100).boxed().collect(Collectors.toList());
+        List<Long> hundredAndOne = LongStream.rangeClosed(1, 101).boxed().collect(Collectors.toList());
+
+        assertEquals(100, adminService.getBooksByPersonIds(hundred).size());
+        assertThrows(InvalidPersonIdsException.class, () -> adminService.getBooksByPersonIds(hundredAndOne));
+        assertThrows(InvalidPersonIdsException.class, () -> adminService.getBooksByPersonIds(List.of()));
+    }
+
+    @Test
+    void getBooksByPersonIdsKeepsRequestedOrder() {
+        when(bookRepository.findOwnedViewsByPersonIds(any())).thenReturn(List.of(
+                new OwnedBookView(1L, 10L, "First", 2001, "Author", null),
+                new OwnedBookView(3L, 30L, "Third", 2003, "Author", null)
+        ));
+        when(bookService.convertOwnedBookViewToBookDTO(any())).thenAnswer(invocation -> {
+            OwnedBookView view = invocation.getArgument(0);
+            BookDTO dto = new BookDTO();
+            dto.setTitle(view.title());
+            return dto;
+        });
+
+        Map<Long, List<BookDTO>> books = adminService.getBooksByPersonIds(List.of(3L, 2L, 1L));
+
+        assertEquals(List.of(3L, 2L, 1L), new ArrayList<>(books.keySet()));
+        assertEquals("Third", books.get(3L).get(0).getTitle());
+        assertTrue(books.get(2L).isEmpty());
+        assertEquals("First", books.get(1L).get(0).getTitle());
+    }
+
+    private static Person person(String name, Role role) {
+        Person person = new Person();
+        person.setName(name);
+        person.setRole(role);
+        return person;
+    }
+}
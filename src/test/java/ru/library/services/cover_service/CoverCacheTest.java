@@ -0,0 +1,124 @@
+package ru.library.services.cover_service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoverCacheTest {
+    private static final int CHUNK_BYTES = 16;
+    private static final long MAX_BYTES = 1024;
+
+    private final CoverCache cache = new CoverCache(MAX_BYTES, CHUNK_BYTES);
+
+    @Test
+    void roundTripsImageSpanningSeveralChunks() throws IOException {
+        byte[] image = image(100, 1);
+        cache.put("a", image);
+
+        Resource resource = cache.get("a", () -> null);
+
+        assertNotNull(resource);
+        assertEquals(image.length, resource.contentLength());
+        try (InputStream in = resource.getInputStream()) {
+            assertArrayEquals(image, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void readsAcrossChunkBoundariesInOddSizedPieces() throws IOException {
+        byte[] image = image(100, 7);
+        cache.put("a", image);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = cache.get("a", () -> null).getInputStream()) {
+            assertEquals(10, in.skip(10));
+            out.write(image, 0, 10);
+
+            byte[] piece = new byte[7];
+            int read;
+            while ((read = in.read(piece, 0, piece.length)) != -1) {
+                out.write(piece, 0, read);
+            }
+        }
+
+        assertArrayEquals(image, out.toByteArray());
+    }
+
+    @Test
+    void keepsChunksOfEvictedEntryUntilOpenStreamIsClosed() throws IOException {
+        byte[] image = image(40, 3);
+        AtomicInteger fallbackCalls = new AtomicInteger();
+        cache.put("a", image);
+        Resource resource = cache.get("a", () -> {
+            fallbackCalls.incrementAndGet();
+            return new ByteArrayResource(image);
+        });
+
+        InputStream in = resource.getInputStream();
+        cache.invalidate("a");
+
+        //Запись уже вне кеша, но ее куски еще держит открытый поток
+        assertNull(cache.get("a", () -> null));
+        assertEquals(3 * CHUNK_BYTES, cache.getStats().getUsedBytes());
+        assertArrayEquals(image, in.readAllBytes());
+
+        in.close();
+        assertEquals(0, cache.getStats().getUsedBytes());
+
+        //Повторное открытие после освобождения кусков уходит в fallback
+        try (InputStream again = resource.getInputStream()) {
+            assertArrayEquals(image, again.readAllBytes());
+        }
+        assertEquals(1, fallbackCalls.get());
+    }
+
+    @Test
+    void rejectsEntriesLargerThanEighthOfBudget() {
+        cache.put("limit", image((int) (MAX_BYTES / 8), 1));
+        cache.put("oversized", image((int) (MAX_BYTES / 8) + 1, 1));
+
+        assertNotNull(cache.get("limit", () -> null));
+        assertNull(cache.get("oversized", () -> null));
+        assertEquals(1, cache.getStats().getEntries());
+    }
+
+    @Test
+    void returnsChunksToFreeListAfterEvictionAndInvalidation() {
+        for (int i = 0; i < 20; i++) {
+            cache.put("key-" + i, image(128, i));
+            assertTrue(cache.getStats().getUsedBytes() <= MAX_BYTES);
+        }
+
+        for (int i = 0; i < 20; i++) {
+            cache.invalidate("key-" + i);
+        }
+
+        assertEquals(0, cache.getStats().getEntries());
+        assertEquals(0, cache.getStats().getUsedBytes());
+        assertEquals(0.0, cache.getStats().getOccupancy());
+    }
+
+    @Test
+    void disabledWhenBudgetIsZero() {
+        CoverCache disabled = new CoverCache(0, CHUNK_BYTES);
+        disabled.put("a", image(10, 1));
+
+        assertNull(disabled.get("a", () -> null));
+        assertEquals(0, disabled.getStats().getCapacityBytes());
+    }
+
+    private static byte[] image(int length, int seed) {
+        byte[] image = new byte[length];
+        for (int i = 0; i < length; i++) {
+            image[i] = (byte) (i * 31 + seed);
+        }
+        return image;
+    }
+}
@@ -0,0 +1,186 @@
+package ru.library.services.cover_service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.library.exceptions.img_exp.CoverFetchException;
+import ru.library.util.ETagUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoverFetcherTest {
+    private static final byte[] IMAGE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 1, 2, 3, 4, 5};
+    private static final long DECLARED_HUGE = 256L * 1024 * 1024;
+
+    @TempDir
+    Path cacheDirectory;
+
+    private HttpServer server;
+    private CoverFetcher fetcher;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicReference<String> lastIfNoneMatch = new AtomicReference<>();
+    private final AtomicLong hugeBytesWritten = new AtomicLong();
+    private final CountDownLatch hugeWriterDone = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+
+        server.createContext("/cover.jpg", exchange -> {
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            lastIfNoneMatch.set(ifNoneMatch);
+
+            if ("\"v1\"".equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+
+            fullResponses.incrementAndGet();
+            exchange.getResponseHeaders().set("ETag", "\"v1\"");
+            exchange.sendResponseHeaders(200, IMAGE.length);
+            exchange.getResponseBody().write(IMAGE);
+            exchange.close();
+        });
+
+        server.createContext("/huge", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(new byte[4096]);
+            } catch (IOException ignored) {
+            }
+            exchange.close();
+        });
+
+        //Заявляет огромное тело и пишет его, пока клиент не закроет соединение
+        server.createContext("/declared-huge", exchange -> {
+            exchange.sendResponseHeaders(200, DECLARED_HUGE);
+            byte[] chunk = new byte[64 * 1024];
+            try (OutputStream out = exchange.getResponseBody()) {
+                while (hugeBytesWritten.get() < DECLARED_HUGE) {
+                    out.write(chunk);
+                    hugeBytesWritten.addAndGet(chunk.length);
+                }
+            } catch (IOException ignored) {
+            } finally {
+                hugeWriterDone.countDown();
+            }
+            exchange.close();
+        });
+
+        server.createContext("/versioned/", exchange -> {
+            exchange.getResponseHeaders().set("ETag", "\"v1\"");
+            exchange.sendResponseHeaders(200, IMAGE.length);
+            exchange.getResponseBody().write(IMAGE);
+            exchange.close();
+        });
+
+        server.createContext("/slow", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(IMAGE, 0, 1);
+                out.flush();
+                Thread.sleep(2000);
+                out.write(IMAGE, 1, IMAGE.length - 1);
+            } catch (IOException | InterruptedException ignored) {
+            }
+            exchange.close();
+        });
+
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+
+        server.createContext("/unavailable", exchange -> {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+
+        server.start();
+
+        fetcher = new CoverFetcher(Duration.ofSeconds(2), Duration.ofMillis(500), 1024, cacheDirectory.toString(), 2L * IMAGE.length);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void revalidatesCachedCoverWithETag() throws IOException {
+        assertArrayEquals(IMAGE, fetcher.fetch(url("/cover.jpg")));
+        assertNull(lastIfNoneMatch.get());
+
+        assertArrayEquals(IMAGE, fetcher.fetch(url("/cover.jpg")));
+        assertEquals("\"v1\"", lastIfNoneMatch.get());
+        assertEquals(1, fullResponses.get());
+    }
+
+    @Test
+    void rejectsBodyLargerThanCapWhileStreaming() {
+        CoverFetchException ex = assertThrows(CoverFetchException.class, () -> fetcher.fetch(url("/huge")));
+        assertFalse(ex.isRetryable());
+    }
+
+    @Test
+    void cancelsBodyWhenContentLengthIsOverCap() throws InterruptedException {
+        CoverFetchException ex = assertThrows(CoverFetchException.class, () -> fetcher.fetch(url("/declared-huge")));
+        assertFalse(ex.isRetryable());
+
+        //Клиент отменил подписку и закрыл соединение, не дочитав тело
+        assertTrue(hugeWriterDone.await(10, TimeUnit.SECONDS));
+        assertTrue(hugeBytesWritten.get() < DECLARED_HUGE);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntriesOverBudget() throws IOException {
+        fetcher.fetch(url("/versioned/a"));
+        fetcher.fetch(url("/versioned/b"));
+        Files.setLastModifiedTime(bodyFile("/versioned/a"), FileTime.fromMillis(1_000));
+        Files.setLastModifiedTime(bodyFile("/versioned/b"), FileTime.fromMillis(2_000));
+
+        fetcher.fetch(url("/versioned/c"));
+
+        assertFalse(Files.exists(bodyFile("/versioned/a")));
+        assertTrue(Files.exists(bodyFile("/versioned/b")));
+        assertTrue(Files.exists(bodyFile("/versioned/c")));
+    }
+
+    @Test
+    void timesOutSlowBody() {
+        CoverFetchException ex = assertThrows(CoverFetchException.class, () -> fetcher.fetch(url("/slow")));
+        assertTrue(ex.isRetryable());
+    }
+
+    @Test
+    void classifiesHttpErrors() {
+        assertFalse(assertThrows(CoverFetchException.class, () -> fetcher.fetch(url("/missing"))).isRetryable());
+        assertTrue(assertThrows(CoverFetchException.class, () -> fetcher.fetch(url("/unavailable"))).isRetryable());
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private Path bodyFile(String path) {
+        return cacheDirectory.resolve(ETagUtil.contentHash(url(path).getBytes(StandardCharsets.UTF_8)) + ".bin");
+    }
+}
@@ -0,0 +1,112 @@
+package ru.library.services.cover_service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.library.models.CoverIngestJob;
+import ru.library.models.CoverStatus;
+import ru.library.repositories.CoverIngestJobRepository;
+import ru.library.repositories.EmbeddedPostgresTest;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+//Воркер пишет результат задачи в отдельной транзакции, поэтому тест без общей транзакции с откатом
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=none")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CoverIngestServiceTest extends EmbeddedPostgresTest {
+    private static final String OLD_URL = "http://covers.example.com/old.jpg";
+    private static final String NEW_URL = "http://covers.example.com/new.png";
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 1, 2, 3};
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 1, 2, 3};
+
+    @Autowired
+    private CoverIngestJobRepository coverIngestJobRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final CoverService coverService = mock(CoverService.class);
+    private final CoverFetcher coverFetcher = mock(CoverFetcher.class);
+    private CoverIngestService coverIngestService;
+    private long bookId;
+
+    @BeforeEach
+    void setUp() {
+        coverIngestService = new CoverIngestService(coverIngestJobRepository, coverService, coverFetcher, 2, 10);
+        ReflectionTestUtils.setField(coverIngestService, "permitsPerHost", 2);
+        ReflectionTestUtils.setField(coverIngestService, "maxAttempts", 5);
+
+        bookId = jdbcTemplate.queryForObject(
+                "insert into book (title, author, year_of_production, status) " +
+                        "values ('Dune', 'Frank Herbert', 1965, 'FREE'::book_status) returning book_id", Long.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coverIngestService.shutdown();
+    }
+
+    @Test
+    void replacedJobIsNotOverwrittenByStaleWorker() throws Exception {
+        CountDownLatch oldFetchStarted = new CountDownLatch(1);
+        CountDownLatch releaseOldFetch = new CountDownLatch(1);
+        when(coverFetcher.fetch(OLD_URL)).thenAnswer(invocation -> {
+            oldFetchStarted.countDown();
+            assertTrue(releaseOldFetch.await(10, TimeUnit.SECONDS));
+            return JPEG;
+        });
+        when(coverFetcher.fetch(NEW_URL)).thenReturn(PNG);
+
+        coverIngestService.enqueue(bookId, OLD_URL);
+        assertTrue(oldFetchStarted.await(10, TimeUnit.SECONDS));
+
+        //Задачу заменили, пока воркер качает старый url
+        coverIngestService.enqueue(bookId, NEW_URL);
+        releaseOldFetch.countDown();
+
+        CoverIngestJob job = awaitReady();
+        assertEquals(NEW_URL, job.getSourceUrl());
+        assertEquals(1, job.getAttempts());
+        verify(coverFetcher, timeout(5000)).fetch(NEW_URL);
+        verify(coverService).saveCover(eq(bookId), eq(PNG), eq("image/png"));
+    }
+
+    @Test
+    void unchangedJobIsFinished() throws IOException, InterruptedException {
+        when(coverFetcher.fetch(OLD_URL)).thenReturn(JPEG);
+
+        coverIngestService.enqueue(bookId, OLD_URL);
+
+        CoverIngestJob job = awaitReady();
+        assertEquals(OLD_URL, job.getSourceUrl());
+        assertEquals(1, job.getAttempts());
+        verify(coverService).saveCover(eq(bookId), eq(JPEG), eq("image/jpeg"));
+    }
+
+    private CoverIngestJob awaitReady() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (System.nanoTime() < deadline) {
+            CoverIngestJob job = coverIngestJobRepository.findById(bookId).orElseThrow();
+            if (job.getStatus() == CoverStatus.READY) {
+                return job;
+            }
+            Thread.sleep(20);
+        }
+
+        return fail("Cover ingest job for book " + bookId + " did not become READY");
+    }
+}
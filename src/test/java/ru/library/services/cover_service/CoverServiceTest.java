@@ -0,0 +1,45 @@
+package ru.library.services.cover_service;
+
+import org.junit.jupiter.api.Test;
+import ru.library.dto.BookCoverView;
+import ru.library.repositories.BookCoverRepository;
+import ru.library.repositories.BookCoverVariantRepository;
+import ru.library.util.ETagUtil;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CoverServiceTest {
+    private final BookCoverRepository bookCoverRepository = mock(BookCoverRepository.class);
+    private final BookCoverVariantRepository bookCoverVariantRepository = mock(BookCoverVariantRepository.class);
+    private final CoverCache coverCache = new CoverCache(1024 * 1024, 1024);
+    private final CoverService coverService = new CoverService(bookCoverRepository, bookCoverVariantRepository,
+            mock(CoverIndex.class), mock(CoverStorage.class), coverCache);
+
+    @Test
+    void saveCoverInvalidatesCachedOldCoverAndVariants() {
+        byte[] oldImage = {1, 2, 3};
+        byte[] oldVariant = {4, 5, 6};
+        String oldHash = ETagUtil.contentHash(oldImage);
+        String oldVariantHash = ETagUtil.contentHash(oldVariant);
+        coverCache.put(oldHash, oldImage);
+        coverCache.put(oldVariantHash, oldVariant);
+
+        when(bookCoverRepository.findViewById(1L))
+                .thenReturn(Optional.of(new BookCoverView(1L, oldImage.length, oldHash, "image/jpeg", LocalDateTime.now())));
+        when(bookCoverVariantRepository.findViewById(anyLong(), anyInt()))
+                .thenReturn(Optional.of(new BookCoverView(1L, oldVariant.length, oldVariantHash, "image/jpeg", LocalDateTime.now())));
+
+        coverService.saveCover(1L, new byte[]{7, 8, 9}, "image/jpeg");
+
+        assertNull(coverCache.get(oldHash, () -> null));
+        assertNull(coverCache.get(oldVariantHash, () -> null));
+        assertEquals(0, coverCache.getStats().getUsedBytes());
+    }
+}
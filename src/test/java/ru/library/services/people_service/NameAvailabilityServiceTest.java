@@ -0,0 +1,56 @@
+package ru.library.services.people_service;
+
+import org.junit.jupiter.api.Test;
+import ru.library.repositories.PeopleRepository;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class NameAvailabilityServiceTest {
+    private final PeopleRepository peopleRepository = mock(PeopleRepository.class);
+    private final NameAvailabilityService service = new NameAvailabilityService(peopleRepository, 1000);
+
+    @Test
+    void goesToDatabaseUntilFilterIsBuilt() {
+        when(peopleRepository.existsByName("Reader")).thenReturn(true);
+
+        assertTrue(service.isTaken("Reader"));
+        verify(peopleRepository).existsByName("Reader");
+    }
+
+    @Test
+    void answersFreeNameWithoutQueryOnceFilterIsBuilt() {
+        rebuildWith("Reader");
+
+        assertFalse(service.isTaken("Somebody Else"));
+        verify(peopleRepository, never()).existsByName(anyString());
+    }
+
+    //Фильтр говорит "возможно" для имени, которое с тех пор освободилось - решает existsByName
+    @Test
+    void maybeFromFilterFallsBackToDatabase() {
+        rebuildWith("Deleted Reader");
+        when(peopleRepository.existsByName("Deleted Reader")).thenReturn(false);
+
+        assertFalse(service.isTaken("Deleted Reader"));
+        verify(peopleRepository).existsByName("Deleted Reader");
+    }
+
+    @Test
+    void markTakenIsVisibleBeforeNextRebuild() {
+        rebuildWith();
+        service.markTaken("New Reader");
+        when(peopleRepository.existsByName("New Reader")).thenReturn(true);
+
+        assertTrue(service.isTaken("New Reader"));
+    }
+
+    private void rebuildWith(String... names) {
+        when(peopleRepository.count()).thenReturn((long) names.length);
+        when(peopleRepository.streamAllNames()).thenReturn(Stream.of(names));
+        service.rebuild();
+    }
+}
@@ -0,0 +1,84 @@
+package ru.library.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.library.dto.CursorPageDTO;
+import ru.library.exceptions.page_exp.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorUtilTest {
+    private CursorUtil cursorUtil;
+
+    @BeforeEach
+    void setUp() {
+        cursorUtil = new CursorUtil();
+        ReflectionTestUtils.setField(cursorUtil, "defaultPageSize", 20);
+        ReflectionTestUtils.setField(cursorUtil, "maxPageSize", 100);
+    }
+
+    @Test
+    void cursorRoundTrip() {
+        assertEquals(12345L, cursorUtil.decode(cursorUtil.encode(12345L)));
+        assertEquals(Long.MAX_VALUE, cursorUtil.decode(cursorUtil.encode(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void missingCursorStartsFromTheBeginning() {
+        assertEquals(0L, cursorUtil.decode(null));
+        assertEquals(0L, cursorUtil.decode(" "));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThrows(InvalidCursorException.class, () -> cursorUtil.decode("not base64!"));
+        assertThrows(InvalidCursorException.class, () -> cursorUtil.decode(encodeRaw("abc")));
+        assertThrows(InvalidCursorException.class, () -> cursorUtil.decode(encodeRaw("-5")));
+    }
+
+    @Test
+    void pageSizeFallsBackToDefaultAndIsClampedToMax() {
+        assertEquals(20, cursorUtil.resolvePageSize(null));
+        assertEquals(20, cursorUtil.resolvePageSize(0));
+        assertEquals(20, cursorUtil.resolvePageSize(-3));
+        assertEquals(7, cursorUtil.resolvePageSize(7));
+        assertEquals(100, cursorUtil.resolvePageSize(100));
+        assertEquals(100, cursorUtil.resolvePageSize(5000));
+    }
+
+    @Test
+    void fetchLimitAsksForOneExtraRow() {
+        assertEquals(21, cursorUtil.fetchLimit(20).max());
+    }
+
+    @Test
+    void extraRowProducesNextCursorPointingAtLastRowOfPage() {
+        List<Long> rows = LongStream.rangeClosed(11, 16).boxed().toList();
+
+        CursorPageDTO<Long> page = cursorUtil.toPage(rows, 5, Long::longValue);
+
+        assertEquals(List.of(11L, 12L, 13L, 14L, 15L), page.getItems());
+        assertEquals(15L, cursorUtil.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void lastPageHasNoNextCursor() {
+        CursorPageDTO<Long> exact = cursorUtil.toPage(List.of(1L, 2L, 3L), 3, Long::longValue);
+        CursorPageDTO<Long> empty = cursorUtil.toPage(List.of(), 3, Long::longValue);
+
+        assertEquals(List.of(1L, 2L, 3L), exact.getItems());
+        assertNull(exact.getNextCursor());
+        assertTrue(empty.getItems().isEmpty());
+        assertNull(empty.getNextCursor());
+    }
+
+    private static String encodeRaw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,68 @@
+package ru.library.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import ru.library.exceptions.img_exp.ImageTooLargeException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageUtilTest {
+    private static final long MAX_PIXELS = 25_000_000;
+
+    @Test
+    void scalesLargerSideDownToMaxSide() throws IOException {
+        ImageUtil.ScaledImage scaled = ImageUtil.scale(png(400, 200), MediaType.IMAGE_PNG_VALUE, 64, MAX_PIXELS);
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(scaled.data()));
+        assertEquals(64, image.getWidth());
+        assertEquals(32, image.getHeight());
+        assertEquals(MediaType.IMAGE_PNG_VALUE, scaled.contentType());
+    }
+
+    @Test
+    void leavesSmallImageAsIs() throws IOException {
+        assertNull(ImageUtil.scale(png(40, 20), MediaType.IMAGE_PNG_VALUE, 64, MAX_PIXELS));
+    }
+
+    @Test
+    void returnsNullForUnreadableFormat() throws IOException {
+        assertNull(ImageUtil.scale(new byte[]{'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E', 'B', 'P'}, ImageUtil.IMAGE_WEBP_VALUE, 64, MAX_PIXELS));
+    }
+
+    //Несколько сотен байт, но заголовок заявляет 50000x50000: декодирование потребовало бы ~10 ГБ
+    @Test
+    void rejectsOversizedHeaderBeforeDecoding() throws IOException {
+        byte[] bomb = withPngSize(png(16, 16), 50_000, 50_000);
+
+        assertTrue(bomb.length < 1024);
+        assertThrows(ImageTooLargeException.class, () -> ImageUtil.scale(bomb, MediaType.IMAGE_PNG_VALUE, 64, MAX_PIXELS));
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+
+    //IHDR идет сразу за сигнатурой: длина (4), тип (4), ширина (4), высота (4), ..., CRC по типу и данным чанка
+    private static byte[] withPngSize(byte[] png, int width, int height) {
+        byte[] patched = png.clone();
+        ByteBuffer buffer = ByteBuffer.wrap(patched);
+        buffer.putInt(16, width);
+        buffer.putInt(20, height);
+
+        CRC32 crc = new CRC32();
+        crc.update(patched, 12, 17);
+        buffer.putInt(29, (int) crc.getValue());
+
+        return patched;
+    }
+}
@@ -0,0 +1,35 @@
+package ru.library.util;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.junit.jupiter.api.Test;
+import ru.library.models.Role;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JWTUtilTest {
+    private final JWTUtil jwtUtil = new JWTUtil("test-secret", "library-test", Duration.ofHours(1), 100);
+
+    @Test
+    void returnsCachedDecodedTokenOnRepeatedValidation() {
+        String token = jwtUtil.generateToken(1L, "Reader", Role.ROLE_USER);
+
+        DecodedJWT first = jwtUtil.validateToken(token);
+        DecodedJWT second = jwtUtil.validateToken(token);
+
+        assertSame(first, second);
+        assertEquals(1L, second.getClaim("id").asLong());
+    }
+
+    @Test
+    void rejectsTamperedTokenEvenAfterOriginalWasCached() {
+        String token = jwtUtil.generateToken(1L, "Reader", Role.ROLE_USER);
+        jwtUtil.validateToken(token);
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JWTVerificationException.class, () -> jwtUtil.validateToken(tampered));
+    }
+}
@@ -0,0 +1,104 @@
+package ru.library.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class RangeUtilTest {
+    private static final byte[] IMAGE = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes();
+    private static final String ETAG = "\"c-abc\"";
+    private static final long LAST_MODIFIED = Instant.parse("2024-05-01T12:00:00Z").toEpochMilli();
+
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new CoverEndpoint()).build();
+
+    @Test
+    void noRangeReturnsWholeImage() throws Exception {
+        mockMvc.perform(get("/cover"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, IMAGE.length))
+                .andExpect(content().bytes(IMAGE));
+    }
+
+    @Test
+    void singleRangeIsPartialContent() throws Exception {
+        mockMvc.perform(get("/cover").header(HttpHeaders.RANGE, "bytes=10-19"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-19/" + IMAGE.length))
+                .andExpect(content().bytes(Arrays.copyOfRange(IMAGE, 10, 20)));
+    }
+
+    @Test
+    void openEndedRangeResumesToTheEnd() throws Exception {
+        mockMvc.perform(get("/cover").header(HttpHeaders.RANGE, "bytes=30-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 30-35/" + IMAGE.length))
+                .andExpect(content().bytes(Arrays.copyOfRange(IMAGE, 30, IMAGE.length)));
+    }
+
+    @Test
+    void rangeBeyondTheEndIsNotSatisfiable() throws Exception {
+        mockMvc.perform(get("/cover").header(HttpHeaders.RANGE, "bytes=500-600"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + IMAGE.length));
+    }
+
+    @Test
+    void ifRangeWithCurrentETagKeepsTheRange() throws Exception {
+        mockMvc.perform(get("/cover").header(HttpHeaders.RANGE, "bytes=0-4").header(HttpHeaders.IF_RANGE, ETAG))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(IMAGE, 0, 5)));
+    }
+
+    @Test
+    void ifRangeWithCurrentDateKeepsTheRange() throws Exception {
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(LAST_MODIFIED).atOffset(ZoneOffset.UTC));
+
+        mockMvc.perform(get("/cover").header(HttpHeaders.RANGE, "bytes=0-4").header(HttpHeaders.IF_RANGE, date))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(IMAGE, 0, 5)));
+    }
+
+    @Test
+    void ifRangeWithStaleValidatorReturnsWholeImage() throws Exception {
+        mockMvc.perform(get("/cover").header(HttpHeaders.RANGE, "bytes=0-4").header(HttpHeaders.IF_RANGE, "\"c-old\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(IMAGE));
+
+        mockMvc.perform(get("/cover").header(HttpHeaders.RANGE, "bytes=0-4").header(HttpHeaders.IF_RANGE, "W/" + ETAG))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(IMAGE));
+    }
+
+    @Test
+    void malformedRangeReturnsWholeImage() throws Exception {
+        mockMvc.perform(get("/cover").header(HttpHeaders.RANGE, "pages=1-2"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(IMAGE));
+    }
+
+    @RestController
+    static class CoverEndpoint {
+        @GetMapping("/cover")
+        ResponseEntity<Resource> cover(HttpServletRequest request) throws IOException {
+            return RangeUtil.buildResponse(request, new ByteArrayResource(IMAGE), MediaType.IMAGE_JPEG, ETAG, LAST_MODIFIED);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+-- Данные для QueryPlanTest: объемы, при которых планировщику есть из чего выбирать,
+-- и доли как в жизни - удаленных, свободных книг и ожидающих задач мало
+insert into person (full_name, age, email, phone_number, password, role, created_at, removed_at)
+select 'Reader ' || translate(i::text, '0123456789', 'abcdefghij') || ' Test',
+       20 + i % 50,
+       'reader' || i || '@example.com',
+       '+7' || lpad(i::text, 10, '0'),
+       'x',
+       'ROLE_USER',
+       now(),
+       case when i % 100 = 0 then now() end
+from generate_series(1, 20000) i;
+
+insert into book (title, author, year_of_production, annotation, created_at, updated_at, removed_at, person_id, status)
+select 'Book ' || i,
+       'Author ' || i % 500,
+       1900 + i % 120,
+       'Annotation ' || i,
+       now(),
+       now(),
+       case when i % 100 = 0 then now() end,
+       case when i % 3 = 0 then 1 + i % 20000 end,
+       (case when i % 3 = 0 then 'ASSIGNED' else 'FREE' end)::book_status
+from generate_series(1, 100000) i;
+
+insert into book_cover (book_id, image, cover_size, content_hash, content_type, updated_at)
+select i, null, 1024, md5(i::text) || md5(i::text), 'image/jpeg', now()
+from generate_series(1, 100000, 3) i;
+
+insert into book_cover_variant (book_id, variant_size, image, cover_size, content_hash, content_type, updated_at)
+select i, 64, null, 256, md5(i::text) || md5(i::text), 'image/jpeg', now()
+from generate_series(1, 100000, 9) i;
+
+insert into cover_ingest_job (book_id, source_url, status, attempts, next_attempt_at, created_at, updated_at)
+select i,
+       'https://covers.example.com/' || i || '.jpg',
+       case when i % 200 = 0 then 'PENDING' else 'READY' end,
+       1,
+       now() - interval '1 minute',
+       now(),
+       now()
+from generate_series(1, 100000, 5) i;
+
+insert into revoked_token (jti, person_id, revoked_at, expires_at)
+select md5(i::text)::uuid::text,
+       1 + i % 20000,
+       now() - interval '2 hours',
+       now() - interval '1 hour' + (i % 100) * interval '1 minute'
+from generate_series(1, 5000) i;
+
+analyze;